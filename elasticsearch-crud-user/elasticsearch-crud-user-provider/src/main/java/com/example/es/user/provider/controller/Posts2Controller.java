@@ -1,8 +1,20 @@
 package com.example.es.user.provider.controller;
 
+import com.example.elasticsearch.component.AggregationBucket;
+import com.example.elasticsearch.component.BulkDocument;
+import com.example.elasticsearch.component.CursorPage;
+import com.example.elasticsearch.component.ElasticsearchTask;
 import com.example.elasticsearch.component.ElasticsearchTemplate;
+import com.example.elasticsearch.component.MultiSearchItem;
+import com.example.elasticsearch.component.MultiSearchResult;
+import com.example.elasticsearch.component.Page;
+import com.example.elasticsearch.component.PreparedQuery;
+import com.example.elasticsearch.component.SuggestOption;
 import org.elasticsearch.index.query.*;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 import org.elasticsearch.search.suggest.SuggestBuilders;
@@ -13,8 +25,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -39,6 +54,9 @@ public class Posts2Controller {
     @Autowired
     private ElasticsearchTemplate elasticsearchTemplate;
 
+    /** 预编译查询，第一次调用preparedQuery时注册 */
+    private volatile PreparedQuery postsByUser;
+
     @RequestMapping(value = "/create", method = RequestMethod.GET)
     public Boolean indexRequest() throws Exception {
         Boolean result = false;
@@ -96,6 +114,22 @@ public class Posts2Controller {
         return "已经异步提交创建文档请求。";
     }
 
+    /**
+     * 批量创建文档：交给BulkProcessor合并提交
+     */
+    @RequestMapping(value = "/createAll/{count}", method = RequestMethod.GET)
+    public Integer createAll(@PathVariable Integer count) throws Exception {
+        List<BulkDocument> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> jsonMap = new HashMap<>();
+            jsonMap.put("user", "jackie " + i);
+            jsonMap.put("postDate", new Date());
+            jsonMap.put("message", "Bulk create a document.");
+            documents.add(new BulkDocument(ES_INDEX, ES_TYPE, null, jsonMap));
+        }
+
+        return elasticsearchTemplate.createAll(documents);
+    }
 
     @RequestMapping(value = "/get", method = RequestMethod.GET)
     public Map<String, Object> getRequest() throws Exception {
@@ -123,6 +157,16 @@ public class Posts2Controller {
 //        return elasticsearchTemplate.update(ES_INDEX, ES_TYPE, id, map);
     }
 
+    @RequestMapping(value = "upsert", method = RequestMethod.GET)
+    public Boolean upsertRequest() throws Exception {
+        String id = "4";
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("message", "Upsert Hello Elasticsearch." + new Date());
+
+        return elasticsearchTemplate.upsert(ES_INDEX, ES_TYPE, id, map);
+    }
+
     @RequestMapping(value = "delete", method = RequestMethod.GET)
     public Boolean deleteRequest() throws Exception {
         String msg = null;
@@ -143,6 +187,29 @@ public class Posts2Controller {
                 "if (ctx._source.user == 'kimchy') {ctx._source.likes++;}");
     }
 
+    /**
+     * 使用stored script更新：脚本通过spring.elasticsearch.scripts.increase_likes配置，启动时注册
+     */
+    @RequestMapping(value = "updateByStoredScript/{count}", method = RequestMethod.GET)
+    public Long updateByStoredScript(@PathVariable Integer count) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("count", count);
+        return elasticsearchTemplate.updateByQuery(ES_INDEX,
+                new TermQueryBuilder("user", "kimchy"), "increase_likes", params);
+    }
+
+    /**
+     * 以后台任务方式执行updateByQuery，立即返回任务id，可以通过GET _tasks/{taskId}查询进度
+     */
+    @RequestMapping(value = "submitUpdateByQuery", method = RequestMethod.GET)
+    public String submitUpdateByQuery() throws Exception {
+        ElasticsearchTask task = elasticsearchTemplate.submitUpdateByQuery(ES_INDEX,
+                new TermQueryBuilder("user", "kimchy"),
+                "if (ctx._source.user == 'kimchy') {ctx._source.likes++;}");
+        task.onCompletion(status -> logger.info("[submitUpdateByQuery]已更新的文档数:{}", status.getUpdated()));
+        return task.getTaskId();
+    }
+
     @RequestMapping(value = "deleteByQuery", method = RequestMethod.GET)
     public Long deleteByQuery() throws Exception {
         return elasticsearchTemplate.deleteByQuery(ES_INDEX,
@@ -154,6 +221,30 @@ public class Posts2Controller {
         return elasticsearchTemplate.queryByPage(ES_INDEX, 3, 2, "_id");
     }
 
+    /**
+     * 游标分页：第一页不传cursor，之后传回上一页返回的cursor；/create/{id}创建的文档user各不相同，以user.keyword作为次排序
+     */
+    @RequestMapping(value = "queryByCursor", method = RequestMethod.GET)
+    public CursorPage<Map<String, Object>> queryByCursor(@RequestParam(required = false) String cursor) throws Exception {
+        return elasticsearchTemplate.queryByCursor(ES_INDEX, 3, "postDate", "user.keyword", QueryBuilders.matchAllQuery(), cursor);
+    }
+
+    /**
+     * 分页查询并返回总数：总数超过1000时只返回gte 1000
+     */
+    @RequestMapping(value = "queryPage", method = RequestMethod.GET)
+    public Page<Map<String, Object>> queryPage(@RequestParam(defaultValue = "1") Integer pageNow) throws Exception {
+        return elasticsearchTemplate.queryPage(ES_INDEX, 3, pageNow, "postDate", QueryBuilders.matchAllQuery(), null, 1000);
+    }
+
+    /**
+     * 匹配的文档数
+     */
+    @RequestMapping(value = "count", method = RequestMethod.GET)
+    public long count() throws Exception {
+        return elasticsearchTemplate.count(ES_INDEX, QueryBuilders.termQuery("user", "kimchy"));
+    }
+
     @RequestMapping(value = "termQueryByPage", method = RequestMethod.GET)
     public List<Map<String, Object>> termQueryByPage() throws Exception {
         TermQueryBuilder termQueryBuilder = QueryBuilders.termQuery("user", "kimchy");
@@ -306,6 +397,80 @@ public class Posts2Controller {
         return jsonResult;
     }
 
+    /**
+     * 聚合查询：直接返回桶列表，bucket.getMetric("average_age")取子聚合的平均年龄
+     */
+    @RequestMapping(value = "aggregationQuery", method = RequestMethod.GET)
+    public List<AggregationBucket> aggregationQuery() throws Exception {
+        TermsAggregationBuilder aggregationBuilder = AggregationBuilders.terms("by_company").field("company.keyword");
+        aggregationBuilder.subAggregation(AggregationBuilders.avg("average_age").field("age"));
+        return elasticsearchTemplate.aggregationQuery(ES_INDEX, null, aggregationBuilder);
+    }
+
+    /**
+     * composite聚合：按用户逐页统计发帖数，每页1000个用户。
+     * 桶逐个处理后即丢弃，只保留汇总结果：用户数及发帖最多的用户，内存与用户数无关
+     */
+    @RequestMapping(value = "compositeAggregation", method = RequestMethod.GET)
+    public Map<String, Object> compositeAggregation() throws Exception {
+        CompositeAggregationBuilder aggregationBuilder = AggregationBuilders.composite("by_user",
+                Collections.singletonList(new TermsValuesSourceBuilder("user").field("user.keyword"))).size(1000);
+        AggregationBucket[] mostActive = new AggregationBucket[1];
+        long users = elasticsearchTemplate.compositeAggregation(ES_INDEX, null, aggregationBuilder, bucket -> {
+            if (mostActive[0] == null || bucket.getDocCount() > mostActive[0].getDocCount()) {
+                mostActive[0] = bucket;
+            }
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("users", users);
+        if (mostActive[0] != null) {
+            result.put("mostActiveUser", ((Map) mostActive[0].getKey()).get("user"));
+            result.put("mostActivePosts", mostActive[0].getDocCount());
+        }
+        return result;
+    }
+
+    /**
+     * 近似统计：发帖用户数及年龄的P50/P95
+     */
+    @RequestMapping(value = "analytics", method = RequestMethod.GET)
+    public Map<String, Object> analytics() throws Exception {
+        Map<String, Object> result = new HashMap<>();
+        result.put("users", elasticsearchTemplate.cardinality(ES_INDEX, null, "user.keyword", 3000L));
+        result.put("age", elasticsearchTemplate.percentiles(ES_INDEX, null, "age", 50, 95));
+        return result;
+    }
+
+    /**
+     * 多查询合并：分页查询和聚合查询在一次请求中执行，按查询分别返回文档、聚合桶或失败原因
+     */
+    @RequestMapping(value = "msearch", method = RequestMethod.GET)
+    public List<Map<String, Object>> msearch() throws Exception {
+        List<MultiSearchItem> items = new ArrayList<>();
+        items.add(new MultiSearchItem(ES_INDEX, 3, 1, "_id", QueryBuilders.termQuery("user", "kimchy")));
+        items.add(new MultiSearchItem(ES_INDEX, 0, 1, null, QueryBuilders.matchAllQuery())
+                .aggregation(AggregationBuilders.terms("by_company").field("company.keyword")));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (MultiSearchResult item : elasticsearchTemplate.msearch(items)) {
+            Map<String, Object> result = new HashMap<>();
+            if (item.isFailed()) {
+                result.put("failure", item.getFailure().getMessage());
+            } else {
+                result.put("documents", item.getDocuments());
+                result.put("totalHits", item.getTotalHits());
+                result.put("took", item.getTook());
+                Terms byCompany = item.getAggregation("by_company");
+                if (byCompany != null) {
+                    result.put("by_company", AggregationBucket.of(byCompany));
+                }
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
     /**
      * 搜索建议
      */
@@ -319,5 +484,29 @@ public class Posts2Controller {
         return elasticsearchTemplate.suggestQueryByPage(ES_INDEX, suggestBuilder);
     }
 
+    /**
+     * 拼写纠错：返回带分数和词频的候选词
+     */
+    @RequestMapping(value = "termSuggest", method = RequestMethod.GET)
+    public List<SuggestOption> termSuggest(@RequestParam(defaultValue = "jack") String text) throws Exception {
+        return elasticsearchTemplate.termSuggest(ES_INDEX, "user", text, 5);
+    }
+
+    /**
+     * 预编译查询：模板只在第一次调用时注册，之后每次只发送模板id和参数
+     */
+    @RequestMapping(value = "preparedQuery", method = RequestMethod.GET)
+    public List<Map<String, Object>> preparedQuery(@RequestParam(defaultValue = "kimchy") String user) throws Exception {
+        if (postsByUser == null) {
+            postsByUser = elasticsearchTemplate.prepareQuery("posts_by_user",
+                    "{\"from\":{{from}},\"size\":{{size}},\"query\":{\"term\":{\"user\":\"{{user}}\"}}}");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("user", user);
+        params.put("from", 0);
+        params.put("size", 10);
+        return elasticsearchTemplate.query(ES_INDEX, postsByUser, params);
+    }
+
 
 }
@@ -0,0 +1,129 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.bucket.SingleBucketAggregation;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: AggregationBucket
+ * @ProjectName elasticsearch-crud
+ * @Description: 分桶聚合的一个桶：key、文档数、单值指标子聚合（avg/sum/min/max/cardinality等）的值，
+ * 以及分桶子聚合的下一层桶，直接从Aggregations对象转换，不经过json序列化。例如：
+ * terms("by_company")下的avg("average_age")：bucket.getMetric("average_age")。
+ * @date 2026/10/17 22:40
+ */
+public class AggregationBucket {
+    private final Object key;
+    private final String keyAsString;
+    private final long docCount;
+    /** 单值指标子聚合，key为聚合名称 */
+    private final Map<String, Double> metrics = new LinkedHashMap<>();
+    /** 分桶子聚合，key为聚合名称；filter/nested等单桶聚合为只有一个桶的列表 */
+    private final Map<String, List<AggregationBucket>> buckets = new LinkedHashMap<>();
+    /** 原始子聚合，用于读取stats/percentiles等多值指标 */
+    private final Aggregations aggregations;
+
+    public AggregationBucket(Object key, String keyAsString, long docCount, Aggregations aggregations) {
+        this.key = key;
+        this.keyAsString = keyAsString;
+        this.docCount = docCount;
+        this.aggregations = aggregations;
+
+        if (aggregations == null) {
+            return;
+        }
+        for (Aggregation aggregation : aggregations) {
+            if (aggregation instanceof NumericMetricsAggregation.SingleValue) {
+                metrics.put(aggregation.getName(), ((NumericMetricsAggregation.SingleValue) aggregation).value());
+            } else if (aggregation instanceof MultiBucketsAggregation) {
+                buckets.put(aggregation.getName(), of((MultiBucketsAggregation) aggregation));
+            } else if (aggregation instanceof SingleBucketAggregation) {
+                SingleBucketAggregation single = (SingleBucketAggregation) aggregation;
+                buckets.put(aggregation.getName(), Collections.singletonList(
+                        new AggregationBucket(aggregation.getName(), aggregation.getName(), single.getDocCount(), single.getAggregations())));
+            }
+        }
+    }
+
+    /**
+     * 转换分桶聚合的全部桶
+     */
+    public static List<AggregationBucket> of(MultiBucketsAggregation aggregation) {
+        List<? extends MultiBucketsAggregation.Bucket> source = aggregation.getBuckets();
+        List<AggregationBucket> buckets = new ArrayList<>(source.size());
+        for (MultiBucketsAggregation.Bucket bucket : source) {
+            buckets.add(new AggregationBucket(bucket.getKey(), bucket.getKeyAsString(), bucket.getDocCount(), bucket.getAggregations()));
+        }
+        return buckets;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public String getKeyAsString() {
+        return keyAsString;
+    }
+
+    public long getDocCount() {
+        return docCount;
+    }
+
+    public Map<String, Double> getMetrics() {
+        return metrics;
+    }
+
+    public Map<String, List<AggregationBucket>> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * 单值指标子聚合的值
+     *
+     * @param name 聚合名称；
+     * @return 聚合不存在时返回null；没有文档时avg等指标为NaN或Infinity。
+     */
+    public Double getMetric(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * 分桶子聚合的桶
+     *
+     * @param name 聚合名称；
+     * @return 聚合不存在时返回空列表。
+     */
+    public List<AggregationBucket> getBuckets(String name) {
+        List<AggregationBucket> list = buckets.get(name);
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    /**
+     * 原始子聚合，例如：Stats stats = bucket.getAggregation("age_stats");
+     *
+     * @param name 聚合名称；
+     * @return 聚合不存在时返回null。
+     */
+    public <A extends Aggregation> A getAggregation(String name) {
+        return aggregations == null ? null : aggregations.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return "AggregationBucket{" +
+                "key=" + key +
+                ", docCount=" + docCount +
+                ", metrics=" + metrics +
+                ", buckets=" + buckets +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.elasticsearch.component;
+
+/**
+ * @author jackie wang
+ * @Title: BulkDocument
+ * @ProjectName elasticsearch-crud
+ * @Description: 批量操作的文档描述：索引、类型、id及文档内容。
+ * @date 2026/10/17 10:20
+ */
+public class BulkDocument {
+    /** 索引 */
+    private String indexName;
+    /** 文档类型，为空时使用默认值_doc */
+    private String type;
+    /** 文档id，批量创建时可以为空，由es自动生成 */
+    private String id;
+    /** 文档内容，可以是map/String(json)/XContentBuilder类型；批量删除时可以为空 */
+    private Object mapping;
+
+    public BulkDocument() {
+    }
+
+    public BulkDocument(String indexName, String id) {
+        this(indexName, null, id, null);
+    }
+
+    public BulkDocument(String indexName, String id, Object mapping) {
+        this(indexName, null, id, mapping);
+    }
+
+    public BulkDocument(String indexName, String type, String id, Object mapping) {
+        this.indexName = indexName;
+        this.type = type;
+        this.id = id;
+        this.mapping = mapping;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Object getMapping() {
+        return mapping;
+    }
+
+    public void setMapping(Object mapping) {
+        this.mapping = mapping;
+    }
+}
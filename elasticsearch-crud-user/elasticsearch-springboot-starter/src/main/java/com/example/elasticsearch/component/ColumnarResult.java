@@ -0,0 +1,225 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author jackie wang
+ * @Title: ColumnarResult
+ * @ProjectName elasticsearch-crud
+ * @Description: 列式查询结果：每个字段一列，数值保存为long[]/double[]基本类型数组，字符串按字典编码，
+ * 用于报表类查询在大量文档的少数字段上做计算，比List<Map>占用更少的内存，遍历也更快。
+ * @date 2026/10/17 21:00
+ */
+public class ColumnarResult {
+
+    /**
+     * 列类型
+     */
+    public enum ColumnType {
+        /** 整数：long/integer/short/byte */
+        LONG,
+        /** 小数：double/float/scaled_float */
+        DOUBLE,
+        /** 日期，保存为毫秒时间戳 */
+        DATE,
+        /** 字符串：keyword，按字典编码 */
+        STRING
+    }
+
+    /** 行数 */
+    private final int size;
+    /** 每行的文档id */
+    private final String[] ids;
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+
+    /**
+     * 从查询结果的doc values字段构建列
+     *
+     * @param hits    查询结果；
+     * @param columns 列名及类型；
+     */
+    public ColumnarResult(SearchHit[] hits, Map<String, ColumnType> columns) {
+        this.size = hits.length;
+        this.ids = new String[size];
+        for (Map.Entry<String, ColumnType> entry : columns.entrySet()) {
+            this.columns.put(entry.getKey(), column(entry.getValue(), size));
+        }
+
+        for (int row = 0; row < size; row++) {
+            SearchHit hit = hits[row];
+            ids[row] = hit.getId();
+            Map<String, DocumentField> fields = hit.getFields();
+            for (Map.Entry<String, Column> entry : this.columns.entrySet()) {
+                DocumentField field = fields.get(entry.getKey());
+                // 多值字段取第一个值
+                Object value = field == null ? null : field.getValue();
+                if (value == null) {
+                    entry.getValue().missing.set(row);
+                } else {
+                    entry.getValue().set(row, value);
+                }
+            }
+        }
+    }
+
+    private static Column column(ColumnType type, int size) {
+        switch (type) {
+            case LONG:
+            case DATE:
+                return new LongColumn(size);
+            case DOUBLE:
+                return new DoubleColumn(size);
+            case STRING:
+            default:
+                return new StringColumn(size);
+        }
+    }
+
+    /**
+     * 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    public String[] getIds() {
+        return ids;
+    }
+
+    public Set<String> getColumnNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * LONG/DATE列的值，缺失的值为0，可以用isMissing判断
+     */
+    public long[] getLongs(String name) {
+        return column(name, LongColumn.class).values;
+    }
+
+    /**
+     * DOUBLE列的值，缺失的值为0，可以用isMissing判断
+     */
+    public double[] getDoubles(String name) {
+        return column(name, DoubleColumn.class).values;
+    }
+
+    /**
+     * STRING列
+     */
+    public StringColumn getStrings(String name) {
+        return column(name, StringColumn.class);
+    }
+
+    /**
+     * 指定行的字段是否缺失
+     */
+    public boolean isMissing(String name, int row) {
+        return column(name, Column.class).missing.get(row);
+    }
+
+    private <C extends Column> C column(String name, Class<C> type) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("The column does not exist: " + name);
+        }
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("The column " + name + " is not a " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+    private abstract static class Column {
+        /** 缺失值的行 */
+        final BitSet missing = new BitSet();
+
+        abstract void set(int row, Object value);
+    }
+
+    private static class LongColumn extends Column {
+        final long[] values;
+
+        LongColumn(int size) {
+            this.values = new long[size];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            // 日期使用epoch_millis格式时以字符串返回
+            values[row] = value instanceof Number ? ((Number) value).longValue() : (long) Double.parseDouble(value.toString());
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+        final double[] values;
+
+        DoubleColumn(int size) {
+            this.values = new double[size];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+        }
+    }
+
+    /**
+     * 字典编码的字符串列：每行保存字典下标，重复的字符串只保存一份
+     */
+    public static class StringColumn extends Column {
+        /** 每行的字典下标，缺失时为-1 */
+        private final int[] codes;
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> lookup = new HashMap<>();
+
+        StringColumn(int size) {
+            this.codes = new int[size];
+            Arrays.fill(codes, -1);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            String text = value.toString();
+            Integer code = lookup.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(text);
+                lookup.put(text, code);
+            }
+            codes[row] = code;
+        }
+
+        /**
+         * 指定行的值，缺失时返回null
+         */
+        public String get(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        /**
+         * 每行的字典下标，缺失时为-1，可以直接按下标分组统计
+         */
+        public int[] getCodes() {
+            return codes;
+        }
+
+        /**
+         * 字典，下标与getCodes()的值对应
+         */
+        public List<String> getDictionary() {
+            return Collections.unmodifiableList(dictionary);
+        }
+    }
+}
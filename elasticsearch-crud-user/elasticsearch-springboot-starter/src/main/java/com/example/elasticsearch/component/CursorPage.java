@@ -0,0 +1,56 @@
+package com.example.elasticsearch.component;
+
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: CursorPage
+ * @ProjectName elasticsearch-crud
+ * @Description: 游标分页结果：当前页文档及下一页的游标，游标为空表示没有下一页。
+ * @date 2026/10/17 16:30
+ */
+public class CursorPage<T> {
+    /** 当前页文档 */
+    private List<T> content;
+    /** 下一页游标，原样传回即可查询下一页 */
+    private String cursor;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> content, String cursor) {
+        this.content = content;
+        this.cursor = cursor;
+    }
+
+    /**
+     * 是否有下一页
+     */
+    public boolean hasNext() {
+        return cursor != null;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPage{" +
+                "content=" + content +
+                ", cursor='" + cursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * @author jackie wang
+ * @Title: DocumentCodec
+ * @ProjectName elasticsearch-crud
+ * @Description: 文档解码器：将_source的原始字节直接转换为目标类型，不经过中间Map。
+ * 默认使用fastjson实现（FastJsonDocumentCodec），可以注册自定义的DocumentCodec bean替换，例如使用jackson。
+ * @date 2026/10/17 19:50
+ */
+public interface DocumentCodec {
+
+    /**
+     * 解码文档
+     *
+     * @param id     文档id；
+     * @param source _source的原始字节（json）；
+     * @param clazz  目标类型；
+     * @return 目标类型的对象。
+     * @throws Exception
+     */
+    <T> T decode(String id, BytesReference source, Class<T> clazz) throws Exception;
+}
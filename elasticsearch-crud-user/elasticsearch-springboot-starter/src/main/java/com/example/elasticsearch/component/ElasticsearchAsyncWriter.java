@@ -0,0 +1,230 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchAsyncWriter
+ * @ProjectName elasticsearch-crud
+ * @Description: 异步写入队列：createAsync的请求先进入有界队列，再由分发线程在并发上限内提交给es，
+ * 队列满时按溢出策略处理，使生产者降速而不是在http客户端中无限堆积回调。
+ * 关闭后不再接受请求，关闭时仍未提交的请求由监听器收到RejectedExecutionException。
+ * @date 2026/10/17 14:30
+ */
+public class ElasticsearchAsyncWriter implements Closeable {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 队列满时的溢出策略
+     */
+    public enum OverflowPolicy {
+        /** 阻塞生产者，直到队列有空位 */
+        BLOCK,
+        /** 丢弃队列中最早的请求，该请求的监听器收到RejectedExecutionException */
+        DROP_OLDEST,
+        /** 立即拒绝当前请求，抛出RejectedExecutionException */
+        FAIL_FAST
+    }
+
+    private final RestHighLevelClient client;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<PendingIndex> queue;
+    /** 正在执行的请求数上限 */
+    private final Semaphore inFlightPermits;
+    private final int maxInFlight;
+    private final Thread dispatcher;
+    /** 关闭标记与入队在同一个锁内检查，关闭后不会再有请求进入队列；BLOCK策略下生产者在该锁上等待队列空位 */
+    private final Object lock = new Object();
+    private volatile boolean closed = false;
+
+    /** 被丢弃或拒绝的请求数 */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param client         es客户端；
+     * @param capacity       队列容量；
+     * @param maxInFlight    正在执行的请求数上限；
+     * @param overflowPolicy 队列满时的溢出策略；
+     */
+    public ElasticsearchAsyncWriter(RestHighLevelClient client, int capacity, int maxInFlight, OverflowPolicy overflowPolicy) {
+        this.client = client;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxInFlight = maxInFlight;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.dispatcher = new Thread(this::run, "elasticsearch-async-writer");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * 提交异步索引请求
+     *
+     * @param request  索引请求；
+     * @param listener 执行结果监听器；
+     * @throws InterruptedException      BLOCK策略下等待时被中断；
+     * @throws RejectedExecutionException FAIL_FAST策略下队列已满，或者写入队列已关闭（包括BLOCK策略下等待期间被关闭）；
+     */
+    public void submit(IndexRequest request, ActionListener<IndexResponse> listener) throws InterruptedException {
+        PendingIndex pending = new PendingIndex(request, listener);
+        PendingIndex dropped = null;
+        synchronized (lock) {
+            while (true) {
+                if (closed) {
+                    throw new RejectedExecutionException("[Elasticsearch]The async writer is closed.");
+                }
+                if (queue.offer(pending)) {
+                    break;
+                }
+                if (overflowPolicy == OverflowPolicy.BLOCK) {
+                    // 分发线程取出请求或关闭时唤醒
+                    lock.wait();
+                } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    dropped = queue.poll();
+                } else {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("[Elasticsearch]The async queue is full.");
+                }
+            }
+        }
+
+        // 在锁外回调，避免监听器阻塞其他生产者
+        if (dropped != null) {
+            rejected.incrementAndGet();
+            logger.warn("[AsyncWriter]队列已满，丢弃最早的请求，索引:{}", dropped.request.index());
+            dropped.listener.onFailure(new RejectedExecutionException("[Elasticsearch]The request was dropped, the async queue is full."));
+        }
+    }
+
+    /**
+     * 队列中等待提交的请求数
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 已提交给es但尚未返回的请求数
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    /**
+     * 被丢弃或拒绝的请求数
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            // 唤醒BLOCK策略下等待的生产者，它们会收到RejectedExecutionException
+            lock.notifyAll();
+        }
+        try {
+            dispatcher.join(30000);
+            if (dispatcher.isAlive()) {
+                // 超时后停止分发，剩余请求在下面统一失败
+                dispatcher.interrupt();
+                dispatcher.join(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 关闭后仍未提交的请求直接失败，避免监听器永远不被调用
+        PendingIndex pending;
+        while ((pending = queue.poll()) != null) {
+            reject(pending);
+        }
+
+        try {
+            // 等待已提交的请求返回
+            if (inFlightPermits.tryAcquire(maxInFlight, 30, TimeUnit.SECONDS)) {
+                inFlightPermits.release(maxInFlight);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (getInFlight() > 0) {
+            logger.warn("[AsyncWriter]关闭时仍有未返回的请求，执行中:{}", getInFlight());
+        }
+    }
+
+    private void reject(PendingIndex pending) {
+        rejected.incrementAndGet();
+        pending.listener.onFailure(new RejectedExecutionException("[Elasticsearch]The async writer was closed before the request was sent."));
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            PendingIndex pending;
+            try {
+                pending = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (pending == null) {
+                continue;
+            }
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+
+            try {
+                inFlightPermits.acquire();
+            } catch (InterruptedException e) {
+                // 已取出的请求同样需要回调
+                reject(pending);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                client.indexAsync(pending.request, RequestOptions.DEFAULT, new ActionListener<IndexResponse>() {
+                    @Override
+                    public void onResponse(IndexResponse indexResponse) {
+                        inFlightPermits.release();
+                        pending.listener.onResponse(indexResponse);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        inFlightPermits.release();
+                        pending.listener.onFailure(e);
+                    }
+                });
+            } catch (Exception e) {
+                inFlightPermits.release();
+                pending.listener.onFailure(e);
+            }
+        }
+    }
+
+    private static class PendingIndex {
+        private final IndexRequest request;
+        private final ActionListener<IndexResponse> listener;
+
+        private PendingIndex(IndexRequest request, ActionListener<IndexResponse> listener) {
+            this.request = request;
+            this.listener = listener;
+        }
+    }
+}
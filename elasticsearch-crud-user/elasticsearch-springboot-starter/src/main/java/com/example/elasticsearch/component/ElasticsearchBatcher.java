@@ -0,0 +1,172 @@
+package com.example.elasticsearch.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchBatcher
+ * @ProjectName elasticsearch-crud
+ * @Description: 请求合并器基类：多个线程并发提交的单个请求，在时间窗口内或达到数量上限时由后台线程合并为一批执行，
+ * 子类负责把一批请求转换为一次_bulk/_mget请求，并为每个调用方设置自己的结果或异常。
+ * @date 2026/10/17 11:05
+ */
+public abstract class ElasticsearchBatcher<Q, R> implements Closeable {
+    protected Logger logger = LoggerFactory.getLogger(getClass());
+
+    /** 名称，用于线程名及异常信息，例如：write、read */
+    private final String name;
+    /** 合并等待时间窗口（纳秒） */
+    private final long window;
+    /** 每次合并的最大请求数 */
+    private final int maxSize;
+
+    private final BlockingQueue<Pending<Q, R>> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    /** 关闭标记与入队在同一个锁内检查，关闭后不会再有请求进入队列 */
+    private final Object lock = new Object();
+    private volatile boolean closed = false;
+
+    /**
+     * @param name    名称；
+     * @param window  合并等待时间窗口（毫秒）；
+     * @param maxSize 每次合并的最大请求数；
+     */
+    protected ElasticsearchBatcher(String name, long window, int maxSize) {
+        this.name = name;
+        this.window = TimeUnit.MILLISECONDS.toNanos(window);
+        this.maxSize = maxSize;
+        this.worker = new Thread(this::run, "elasticsearch-" + name + "-batcher");
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * 启动后台线程，子类在构造方法最后调用
+     */
+    protected void start() {
+        worker.start();
+    }
+
+    /**
+     * 执行一批请求，并完成每个请求的future
+     *
+     * @param batch 按提交顺序排列的请求；
+     */
+    protected abstract void process(List<Pending<Q, R>> batch);
+
+    /**
+     * 提交请求并等待所在批次执行完成。
+     *
+     * @param request 请求；
+     * @return 该请求的结果；
+     * @throws Exception 请求失败时抛出失败原因。
+     */
+    protected R submit(Q request) throws Exception {
+        Pending<Q, R> pending = new Pending<>(request);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException(closedMessage());
+            }
+            queue.add(pending);
+        }
+        try {
+            return pending.future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 当前等待合并的请求数
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        try {
+            worker.join(TimeUnit.NANOSECONDS.toMillis(window) + 30000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 关闭后仍未处理的请求直接失败，避免调用方一直等待
+        Pending<Q, R> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException(closedMessage()));
+        }
+    }
+
+    private String closedMessage() {
+        return "[Elasticsearch]The " + name + " batcher is closed.";
+    }
+
+    private void run() {
+        List<Pending<Q, R>> batch = new ArrayList<>(maxSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending<Q, R> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 在时间窗口内继续收集请求，直到达到数量上限
+                long deadline = System.nanoTime() + window;
+                while (batch.size() < maxSize) {
+                    queue.drainTo(batch, maxSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending<Q, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                logger.error("[Batcher]{}请求合并执行异常:", name, e);
+                for (Pending<Q, R> pending : batch) {
+                    pending.future.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 等待合并的请求
+     */
+    protected static class Pending<Q, R> {
+        protected final Q request;
+        protected final CompletableFuture<R> future = new CompletableFuture<>();
+
+        protected Pending(Q request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchBulkListener
+ * @ProjectName elasticsearch-crud
+ * @Description: BulkProcessor批量提交监听器，记录每批次的执行结果及失败文档，写入成功后使文档的近端缓存及索引的查询结果缓存失效。
+ * @date 2026/10/17 10:12
+ */
+public class ElasticsearchBulkListener implements BulkProcessor.Listener {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /** 已提交成功的文档数 */
+    private final AtomicLong succeeded = new AtomicLong();
+    /** 提交失败的文档数 */
+    private final AtomicLong failed = new AtomicLong();
+    /** get近端缓存，可以为null */
+    private final ElasticsearchNearCache nearCache;
+    /** 查询结果缓存，可以为null */
+    private final ElasticsearchSearchCache searchCache;
+
+    public ElasticsearchBulkListener() {
+        this(null, null);
+    }
+
+    public ElasticsearchBulkListener(ElasticsearchNearCache nearCache, ElasticsearchSearchCache searchCache) {
+        this.nearCache = nearCache;
+        this.searchCache = searchCache;
+    }
+
+    @Override
+    public void beforeBulk(long executionId, BulkRequest request) {
+        logger.debug("[BulkProcessor]批次:{}，提交文档数:{}，请求大小:{}bytes", executionId,
+                request.numberOfActions(), request.estimatedSizeInBytes());
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+        long failures = 0;
+        Set<String> indices = new HashSet<>();
+        for (BulkItemResponse item : response) {
+            if (item.isFailed()) {
+                failures++;
+                logger.error("[BulkProcessor]批次:{}，文档{}/{}操作失败:{}", executionId,
+                        item.getIndex(), item.getId(), item.getFailureMessage());
+                if (nearCache != null) {
+                    nearCache.invalidate(item.getIndex(), item.getType(), item.getId(), -1);
+                }
+            } else if (nearCache != null) {
+                // 提交时已删除缓存，这里以写入后的版本再次失效，防止提交期间读到的旧文档留在缓存中
+                nearCache.invalidate(item.getIndex(), item.getType(), item.getId(), item.getVersion());
+            }
+            indices.add(item.getIndex());
+        }
+        if (searchCache != null) {
+            indices.forEach(searchCache::invalidate);
+        }
+        succeeded.addAndGet(request.numberOfActions() - failures);
+        failed.addAndGet(failures);
+        logger.info("[BulkProcessor]批次:{}，文档数:{}，失败数:{}，耗时:{}", executionId,
+                request.numberOfActions(), failures, response.getTook());
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+        failed.addAndGet(request.numberOfActions());
+        logger.error("[BulkProcessor]批次:{}提交失败，文档数:{}", executionId, request.numberOfActions(), failure);
+
+        // 请求失败时服务端仍可能已写入部分文档（例如客户端超时），同样使缓存失效
+        Set<String> indices = new HashSet<>();
+        for (DocWriteRequest<?> item : request.requests()) {
+            if (nearCache != null && item.id() != null) {
+                nearCache.invalidate(item.index(), item.type(), item.id(), -1);
+            }
+            indices.add(item.index());
+        }
+        if (searchCache != null) {
+            indices.forEach(searchCache::invalidate);
+        }
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.PipelineAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchCompositeIterator
+ * @ProjectName elasticsearch-crud
+ * @Description: composite聚合的流式读取：按after_key逐页查询桶，调用方处理当前页时后台已经在查询下一页，
+ * 客户端最多保留两页桶，集群每次只计算一页，适合对用户id等高基数字段分组。
+ * 翻页使用composite聚合的副本，不修改调用方传入的aggregationBuilder。
+ * @date 2026/10/17 23:00
+ */
+public class ElasticsearchCompositeIterator implements Iterator<AggregationBucket>, Closeable {
+    private final RestHighLevelClient client;
+    private final SearchRequest request;
+    private final CompositeAggregationBuilder aggregationBuilder;
+
+    private Iterator<AggregationBucket> current = Collections.emptyIterator();
+    /** 预取中的下一页 */
+    private CompletableFuture<SearchResponse> next;
+    private boolean exhausted = false;
+    private volatile boolean closed = false;
+    /** 已读取的桶数 */
+    private long fetched = 0;
+
+    /**
+     * 执行第一页查询并开始预取下一页
+     *
+     * @param client             es客户端；
+     * @param request            查询请求，request.source()中不包含聚合，size为0；
+     * @param aggregationBuilder composite聚合，每页桶数取aggregationBuilder.size()，设置了after时从after之后开始读取；
+     * @throws Exception
+     */
+    public ElasticsearchCompositeIterator(RestHighLevelClient client, SearchRequest request,
+                                          CompositeAggregationBuilder aggregationBuilder) throws Exception {
+        this.client = client;
+        this.request = request;
+        this.aggregationBuilder = copy(aggregationBuilder);
+
+        request.source().aggregation(this.aggregationBuilder);
+        accept(client.search(request, RequestOptions.DEFAULT));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (exhausted || closed) {
+                return false;
+            }
+            accept(await(next));
+        }
+        return true;
+    }
+
+    @Override
+    public AggregationBucket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * 转换为Stream，Stream关闭时停止预取，建议配合try-with-resources使用
+     */
+    public Stream<AggregationBucket> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * 已读取的桶数
+     */
+    public long getFetched() {
+        return fetched;
+    }
+
+    /**
+     * 停止读取：不再预取下一页，预取中的页返回后直接丢弃
+     */
+    @Override
+    public void close() {
+        closed = true;
+        current = Collections.emptyIterator();
+        next = null;
+    }
+
+    private void accept(SearchResponse response) {
+        CompositeAggregation aggregation = response.getAggregations().get(aggregationBuilder.getName());
+        List<AggregationBucket> buckets = AggregationBucket.of(aggregation);
+        current = buckets.iterator();
+        fetched += buckets.size();
+
+        // 没有after_key或空页时已读取全部桶
+        Map<String, Object> afterKey = aggregation.afterKey();
+        if (buckets.isEmpty() || afterKey == null || closed) {
+            exhausted = true;
+        } else {
+            prefetch(afterKey);
+        }
+    }
+
+    private void prefetch(Map<String, Object> afterKey) {
+        // aggregationBuilder是本迭代器的副本；请求在searchAsync调用时已序列化，修改after不影响正在执行的请求
+        aggregationBuilder.aggregateAfter(afterKey);
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        client.searchAsync(request, RequestOptions.DEFAULT, new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                future.complete(searchResponse);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        next = future;
+    }
+
+    /**
+     * 复制composite聚合：sources、size、子聚合及after，sources和子聚合共用调用方的对象，翻页时只修改副本的after
+     */
+    @SuppressWarnings("unchecked")
+    private static CompositeAggregationBuilder copy(CompositeAggregationBuilder builder) throws IOException {
+        CompositeAggregationBuilder copy = new CompositeAggregationBuilder(builder.getName(), builder.sources())
+                .size(builder.size());
+        for (AggregationBuilder subAggregation : builder.getSubAggregations()) {
+            copy.subAggregation(subAggregation);
+        }
+        for (PipelineAggregationBuilder pipelineAggregation : builder.getPipelineAggregations()) {
+            copy.subAggregation(pipelineAggregation);
+        }
+        if (builder.getMetaData() != null && !builder.getMetaData().isEmpty()) {
+            copy.setMetaData(builder.getMetaData());
+        }
+
+        // CompositeAggregationBuilder没有提供after的读取方法，从json中取调用方设置的起始位置
+        Map<String, Object> json = XContentHelper.convertToMap(
+                XContentHelper.toXContent(builder, XContentType.JSON, false), false, XContentType.JSON).v2();
+        Map<String, Object> aggregation = (Map<String, Object>) json.get(builder.getName());
+        Map<String, Object> composite = (Map<String, Object>) aggregation.get(CompositeAggregationBuilder.NAME);
+        Object after = composite.get(CompositeAggregationBuilder.AFTER_FIELD_NAME.getPreferredName());
+        if (after instanceof Map) {
+            copy.aggregateAfter((Map<String, Object>) after);
+        }
+        return copy;
+    }
+
+    private SearchResponse await(CompletableFuture<SearchResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exhausted = true;
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            exhausted = true;
+            throw new RuntimeException("[Elasticsearch]The composite aggregation query fails.", e.getCause());
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.elasticsearch.component;
 
-import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * @author jackie wang
@@ -53,6 +56,7 @@ public interface ElasticsearchExecute {
 
     /**
      * 根据id异步创建文档
+     * 请求先进入有界队列（spring.elasticsearch.async.*），队列满时按溢出策略阻塞、丢弃最早请求或抛出RejectedExecutionException。
      * @param indexName
      * @param type
      * @param mapping 可以是map/String(json)/XContentBuilder类型，根据参数类型动态适配；
@@ -70,6 +74,60 @@ public interface ElasticsearchExecute {
      */
     boolean update(String indexName, String type, String id, Object mapping) throws Exception;
 
+    /**
+     * 根据id更新文档，文档不存在时以mapping作为新文档创建（docAsUpsert）。
+     * 只发送一次UpdateRequest，不再先查询文档是否存在；并发修改产生版本冲突时由es重试retryOnConflict次。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param mapping 可以是map/String(json)/XContentBuilder类型，根据参数类型动态适配；
+     * @return 文档被创建或更新时返回true，内容相同（noop）时返回false。
+     * @throws Exception
+     */
+    boolean upsert(String indexName, String type, String id, Object mapping) throws Exception;
+
+    /**
+     * 根据id更新文档，文档不存在时以upsertMapping作为新文档创建。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param mapping 文档存在时的部分更新内容，可以是map/String(json)/XContentBuilder类型；
+     * @param upsertMapping 文档不存在时创建的文档内容，为空时使用mapping（docAsUpsert）；
+     * @return 文档被创建或更新时返回true，内容相同（noop）时返回false。
+     * @throws Exception
+     */
+    boolean upsert(String indexName, String type, String id, Object mapping, Object upsertMapping) throws Exception;
+
+    /**
+     * 根据id更新文档（乐观并发控制），只发送一次UpdateRequest。
+     * 文档当前的_seq_no和_primary_term与参数不一致时说明文档已被修改，抛出版本冲突异常；文档不存在时抛出异常。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param mapping 可以是map/String(json)/XContentBuilder类型，根据参数类型动态适配；
+     * @param ifSeqNo 读取文档时的_seq_no；
+     * @param ifPrimaryTerm 读取文档时的_primary_term；
+     * @return
+     * @throws Exception
+     */
+    boolean update(String indexName, String type, String id, Object mapping, long ifSeqNo, long ifPrimaryTerm) throws Exception;
+
+    /**
+     * 根据id使用stored script更新文档，只发送一次UpdateRequest，版本冲突时由es重试。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param scriptId 已注册的stored script id；
+     * @param params 脚本参数；
+     * @return
+     * @throws Exception
+     */
+    boolean update(String indexName, String type, String id, String scriptId, Map<String, Object> params) throws Exception;
+
     /**
      * 根据id删除文档
      *
@@ -80,26 +138,157 @@ public interface ElasticsearchExecute {
      */
     boolean delete(String indexName, String type, String id) throws Exception;
 
+    /**
+     * 批量创建文档：文档交给BulkProcessor，按文档数量、请求大小、时间间隔合并为_bulk请求异步提交。
+     * id不为空时文档已存在会提交失败，失败的文档记录在日志中。
+     *
+     * @param documents 文档列表；例如：new BulkDocument("posts", "1", jsonMap)
+     * @return 已加入批量处理器的文档数。
+     * @throws Exception
+     */
+    int createAll(Collection<BulkDocument> documents) throws Exception;
+
+    /**
+     * 批量更新文档（部分更新），提交方式同createAll。
+     *
+     * @param documents 文档列表，id和mapping不能为空；
+     * @return 已加入批量处理器的文档数。
+     * @throws Exception
+     */
+    int updateAll(Collection<BulkDocument> documents) throws Exception;
+
+    /**
+     * 批量删除文档，提交方式同createAll。
+     *
+     * @param documents 文档列表，id不能为空，mapping可以为空；
+     * @return 已加入批量处理器的文档数。
+     * @throws Exception
+     */
+    int deleteAll(Collection<BulkDocument> documents) throws Exception;
+
+    /**
+     * 立即提交批量处理器中尚未提交的文档。
+     */
+    void flushBulk();
+
     /**
      * 根据查询更新索引中的文档：最简单的用法是更新索引中的每个文档，而无需更改源。
      * 注意：批量执行比较耗时。
      *
      * @param indexName 索引；
-     * @param termQueryBuilder 例如：new TermQueryBuilder("user","kimchy" )
+     * @param queryBuilder 查询条件，任意QueryBuilder；例如：new TermQueryBuilder("user","kimchy" )
      * @param script           脚本：例如"if (ctx._source.user == 'kimchy') {ctx._source.likes++;}"
      * @return
      * @throws Exception
      */
-    Long updateByQuery(String indexName, TermQueryBuilder termQueryBuilder, String script) throws Exception;
+    Long updateByQuery(String indexName, QueryBuilder queryBuilder, String script) throws Exception;
+
+    /**
+     * 根据查询使用stored script更新索引中的文档：脚本只在注册时编译一次，变化的值通过params传入，
+     * 避免每个值拼接出不同的inline脚本而反复编译（script.max_compilations_rate）。
+     *
+     * @param indexName 索引；
+     * @param queryBuilder 查询条件，任意QueryBuilder；例如：new TermQueryBuilder("user","kimchy" )
+     * @param scriptId 已注册的stored script id，参考putScript和spring.elasticsearch.scripts；
+     * @param params 脚本参数，脚本中通过params.xxx引用；例如："ctx._source.likes += params.count"
+     * @return
+     * @throws Exception
+     */
+    Long updateByQuery(String indexName, QueryBuilder queryBuilder, String scriptId, Map<String, Object> params) throws Exception;
+
+    /**
+     * 注册（或覆盖）painless stored script，es只在注册时编译一次。
+     * 也可以通过spring.elasticsearch.scripts.<id>=<source>配置，启动时自动注册。
+     *
+     * @param scriptId 脚本id；
+     * @param source 脚本内容，例如："ctx._source.likes += params.count"
+     * @return
+     * @throws Exception
+     */
+    boolean putScript(String scriptId, String source) throws Exception;
 
     /**
      * 根据查询条件删除索引中的文档。
      *
      * @param indexName 索引；
-     * @param termQueryBuilder 例如：new TermQueryBuilder("user","kimchy" )
+     * @param queryBuilder 查询条件，任意QueryBuilder；例如：new TermQueryBuilder("user","kimchy" )
      * @return
      * @throws Exception
      */
-    Long deleteByQuery(String indexName, TermQueryBuilder termQueryBuilder) throws Exception;
+    Long deleteByQuery(String indexName, QueryBuilder queryBuilder) throws Exception;
+
+    /**
+     * 以后台任务方式根据查询更新索引中的文档（wait_for_completion=false），立即返回任务句柄，
+     * 调用线程不再阻塞到任务结束，可以通过任务句柄查询进度、注册完成回调、取消或调整限速。
+     *
+     * @param indexName 索引；
+     * @param queryBuilder 查询条件；
+     * @param script 脚本：例如"if (ctx._source.user == 'kimchy') {ctx._source.likes++;}"
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    ElasticsearchTask submitUpdateByQuery(String indexName, QueryBuilder queryBuilder, String script) throws Exception;
+
+    /**
+     * 以后台任务方式根据查询使用stored script更新索引中的文档。
+     *
+     * @param indexName 索引；
+     * @param queryBuilder 查询条件；
+     * @param scriptId 已注册的stored script id；
+     * @param params 脚本参数；
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    ElasticsearchTask submitUpdateByQuery(String indexName, QueryBuilder queryBuilder, String scriptId, Map<String, Object> params) throws Exception;
+
+    /**
+     * 以后台任务方式根据查询条件删除索引中的文档。
+     *
+     * @param indexName 索引；
+     * @param queryBuilder 查询条件；
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    ElasticsearchTask submitDeleteByQuery(String indexName, QueryBuilder queryBuilder) throws Exception;
+
+    /**
+     * 重建索引：将源索引中的文档复制到目标索引，可以指定查询条件过滤文档、使用脚本转换文档，
+     * 按spring.elasticsearch.byQuery配置切片并行执行。
+     * 注意：调用线程阻塞到任务结束，大索引请使用submitReindex。
+     *
+     * @param sourceIndex 源索引；
+     * @param destIndex 目标索引；
+     * @param queryBuilder 查询条件，为空时复制全部文档；
+     * @param script 转换脚本，可以为空；例如："ctx._source.remove('message')"
+     * @return 已创建和更新的文档数。
+     * @throws Exception
+     */
+    Long reindex(String sourceIndex, String destIndex, QueryBuilder queryBuilder, String script) throws Exception;
+
+    /**
+     * 以后台任务方式重建索引，立即返回任务句柄，可以查询进度、注册完成回调、取消或调整限速。
+     *
+     * @param sourceIndex 源索引；
+     * @param destIndex 目标索引；
+     * @param queryBuilder 查询条件，为空时复制全部文档；
+     * @param script 转换脚本，可以为空；
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    ElasticsearchTask submitReindex(String sourceIndex, String destIndex, QueryBuilder queryBuilder, String script) throws Exception;
+
+    /**
+     * 以后台任务方式重建索引，并在提交时设置限速，避免任务启动后到调用rethrottle之前全速写入目标索引。
+     *
+     * @param sourceIndex 源索引；
+     * @param destIndex 目标索引；
+     * @param queryBuilder 查询条件，为空时复制全部文档；
+     * @param script 转换脚本，可以为空；
+     * @param requestsPerSecond 每秒请求数，小于等于0表示不限速；
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    ElasticsearchTask submitReindex(String sourceIndex, String destIndex, QueryBuilder queryBuilder, String script,
+                                   float requestsPerSecond) throws Exception;
 
 }
@@ -0,0 +1,146 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchExport
+ * @ProjectName elasticsearch-crud
+ * @Description: 切片并行导出：每个切片（slice.id/slice.max）一个scroll，在指定线程池中并行读取，
+ * 文档交给调用方的consumer处理，可以查询每个切片的进度、等待完成或取消。
+ * @date 2026/10/17 17:50
+ */
+public class ElasticsearchExport<T> {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String indexName;
+    /** 每个切片已导出的文档数 */
+    private final AtomicLongArray progress;
+    private final CompletableFuture<Long> completion;
+    private volatile boolean cancelled = false;
+
+    /**
+     * 提交全部切片到线程池并立即返回
+     *
+     * @param client    es客户端；
+     * @param indexName 索引；
+     * @param requests  每个切片的查询请求；
+     * @param keepAlive scroll上下文保持时间；
+     * @param mapper    文档转换；
+     * @param consumer  文档处理，多个切片线程并发调用，必须线程安全；
+     * @param executor  执行切片的线程池；
+     */
+    public ElasticsearchExport(RestHighLevelClient client, String indexName, List<SearchRequest> requests, TimeValue keepAlive,
+                               Function<SearchHit, T> mapper, Consumer<? super T> consumer, Executor executor) {
+        this.indexName = indexName;
+        this.progress = new AtomicLongArray(requests.size());
+
+        CompletableFuture<?>[] slices = new CompletableFuture<?>[requests.size()];
+        for (int i = 0; i < slices.length; i++) {
+            int slice = i;
+            SearchRequest request = requests.get(i);
+            slices[i] = CompletableFuture.runAsync(() -> exportSlice(client, slice, request, keepAlive, mapper, consumer), executor)
+                    .whenComplete((result, e) -> {
+                        // 任一切片失败时停止其他切片
+                        if (e != null) {
+                            cancelled = true;
+                        }
+                    });
+        }
+
+        this.completion = CompletableFuture.allOf(slices).thenApply(v -> {
+            if (cancelled) {
+                throw new CompletionException(new IllegalStateException("[Elasticsearch]The export was cancelled."));
+            }
+            long exported = getExported();
+            logger.info("[ElasticsearchExport]索引:{}导出完成，切片数:{}，文档数:{}", indexName, slices.length, exported);
+            return exported;
+        });
+    }
+
+    private void exportSlice(RestHighLevelClient client, int slice, SearchRequest request, TimeValue keepAlive,
+                             Function<SearchHit, T> mapper, Consumer<? super T> consumer) {
+        if (cancelled) {
+            return;
+        }
+        ElasticsearchScrollIterator<T> iterator;
+        try {
+            iterator = new ElasticsearchScrollIterator<>(client, request, keepAlive, mapper);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+
+        try {
+            while (!cancelled && iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                progress.incrementAndGet(slice);
+            }
+            logger.debug("[ElasticsearchExport]索引:{}切片:{}结束，文档数:{}", indexName, slice, progress.get(slice));
+        } finally {
+            iterator.close();
+        }
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    /**
+     * 切片数
+     */
+    public int getSlices() {
+        return progress.length();
+    }
+
+    /**
+     * 指定切片已导出的文档数
+     *
+     * @param slice 切片id，从0开始；
+     */
+    public long getProgress(int slice) {
+        return progress.get(slice);
+    }
+
+    /**
+     * 全部切片已导出的文档数
+     */
+    public long getExported() {
+        long exported = 0;
+        for (int i = 0; i < progress.length(); i++) {
+            exported += progress.get(i);
+        }
+        return exported;
+    }
+
+    /**
+     * 全部切片完成时返回导出的文档总数，任一切片失败或被取消时异常完成
+     */
+    public CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    /**
+     * 取消导出，各切片处理完当前文档后停止并清除scroll上下文
+     */
+    public void cancel() {
+        cancelled = true;
+        logger.info("[ElasticsearchExport]索引:{}导出已取消，已导出文档数:{}", indexName, getExported());
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.elasticsearch.component;
+
+import com.example.elasticsearch.configuration.ElasticsearchProperties;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.get.GetResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchNearCache
+ * @ProjectName elasticsearch-crud
+ * @Description: get近端缓存：按索引配置容量和存活时间，热点文档在本地命中，不再请求集群。
+ * 缓存保存文档的_version，本模板的写操作以写入后的版本使缓存失效，比该版本旧的读取结果不会再写入缓存；
+ * 容量超出时优先淘汰过期及访问频率低的文档，直到文档数不超过容量，访问频率定期减半，使过去的热点逐渐失去优势。
+ * @date 2026/10/17 21:40
+ */
+public class ElasticsearchNearCache {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /** 淘汰后保留的比例，留出余量，避免每次写入缓存都扫描 */
+    private final static double EVICT_TARGET = 0.9;
+
+    private final Map<String, IndexCache> indices = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param config key为索引，value为该索引的缓存配置；
+     */
+    public ElasticsearchNearCache(Map<String, ElasticsearchProperties.NearCache> config) {
+        for (Map.Entry<String, ElasticsearchProperties.NearCache> entry : config.entrySet()) {
+            indices.put(entry.getKey(), new IndexCache(entry.getValue().getMaxSize(),
+                    TimeUnit.SECONDS.toNanos(entry.getValue().getTtl())));
+        }
+        if (!indices.isEmpty()) {
+            logger.info("[NearCache]已开启get缓存的索引:{}", indices.keySet());
+        }
+    }
+
+    /**
+     * 索引是否开启了缓存
+     */
+    public boolean isEnabled(String indexName) {
+        return indices.containsKey(indexName);
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @return 未命中或已过期时返回null。
+     */
+    public GetResponse get(String indexName, String type, String id) {
+        IndexCache cache = indices.get(indexName);
+        if (cache == null) {
+            return null;
+        }
+
+        String key = key(type, id);
+        Entry entry = cache.entries.get(key);
+        if (entry == null || entry.source == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.isExpired()) {
+            cache.entries.remove(key, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        entry.frequency.incrementAndGet();
+        hits.incrementAndGet();
+        // 每次返回新的GetResponse，调用方修改getSourceAsMap()的结果不会影响缓存
+        return new GetResponse(new GetResult(indexName, entry.type, entry.id, entry.seqNo, entry.primaryTerm,
+                entry.version, true, entry.source, Collections.emptyMap()));
+    }
+
+    /**
+     * 写入缓存：只缓存存在的完整文档；比已记录的写入版本旧的结果不写入
+     */
+    public void put(GetResponse response) {
+        IndexCache cache = indices.get(response.getIndex());
+        if (cache == null || !response.isExists() || response.getSourceInternal() == null) {
+            return;
+        }
+
+        Entry entry = new Entry(response.getType(), response.getId(), response.getSeqNo(), response.getPrimaryTerm(),
+                response.getVersion(), response.getSourceInternal(), System.nanoTime() + cache.ttl);
+        cache.entries.compute(key(response.getType(), response.getId()), (key, current) -> {
+            if (current != null && !current.isExpired() && current.version > entry.version) {
+                return current;
+            }
+            if (current != null) {
+                entry.frequency.set(current.frequency.get());
+            }
+            return entry;
+        });
+
+        if (cache.entries.size() > cache.maxSize) {
+            evict(cache);
+        }
+    }
+
+    /**
+     * 文档被写入后使缓存失效
+     *
+     * @param version 写入后的版本，未知时传-1；已知版本时保留一个失效标记，防止并发的旧读取结果重新写入缓存；
+     */
+    public void invalidate(String indexName, String type, String id, long version) {
+        IndexCache cache = indices.get(indexName);
+        if (cache == null) {
+            return;
+        }
+
+        String key = key(type, id);
+        if (version < 0) {
+            cache.entries.remove(key);
+        } else {
+            cache.entries.put(key, new Entry(type, id, 0, 0, version, null, System.nanoTime() + cache.ttl));
+        }
+    }
+
+    /**
+     * 使索引的全部缓存失效，用于updateByQuery/deleteByQuery/reindex等无法确定文档的写操作
+     */
+    public void invalidateAll(String indexName) {
+        IndexCache cache = indices.get(indexName);
+        if (cache != null) {
+            cache.entries.clear();
+            logger.debug("[NearCache]索引:{}的缓存已全部失效", indexName);
+        }
+    }
+
+    /**
+     * 指定索引当前缓存的文档数
+     */
+    public int size(String indexName) {
+        IndexCache cache = indices.get(indexName);
+        return cache == null ? 0 : cache.entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * 先淘汰过期的文档，仍超出容量时淘汰访问频率最低的文档，最后将访问频率减半。
+     * 淘汰期间其他线程写入的文档使容量再次超出时继续淘汰，直到文档数不超过容量。
+     */
+    private void evict(IndexCache cache) {
+        if (!cache.evictLock.tryLock()) {
+            return;
+        }
+        try {
+            do {
+                List<Candidate> candidates = new ArrayList<>(cache.entries.size());
+                for (Map.Entry<String, Entry> entry : cache.entries.entrySet()) {
+                    if (entry.getValue().isExpired()) {
+                        if (cache.entries.remove(entry.getKey(), entry.getValue())) {
+                            evictions.incrementAndGet();
+                        }
+                    } else {
+                        candidates.add(new Candidate(entry.getKey(), entry.getValue()));
+                    }
+                }
+
+                int target = (int) (cache.maxSize * EVICT_TARGET);
+                if (candidates.size() > target) {
+                    candidates.sort((a, b) -> Integer.compare(a.frequency, b.frequency));
+                    for (int i = 0; i < candidates.size() - target; i++) {
+                        Candidate candidate = candidates.get(i);
+                        if (cache.entries.remove(candidate.key, candidate.entry)) {
+                            evictions.incrementAndGet();
+                        }
+                    }
+                }
+
+                for (Entry entry : cache.entries.values()) {
+                    entry.frequency.updateAndGet(frequency -> frequency >> 1);
+                }
+            } while (cache.entries.size() > cache.maxSize);
+        } finally {
+            cache.evictLock.unlock();
+        }
+    }
+
+    private static String key(String type, String id) {
+        return type + "/" + id;
+    }
+
+    private static class IndexCache {
+        private final int maxSize;
+        /** 存活时间（纳秒） */
+        private final long ttl;
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final ReentrantLock evictLock = new ReentrantLock();
+
+        private IndexCache(int maxSize, long ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * 淘汰候选，访问频率取快照，排序期间其他线程的访问不影响比较结果
+     */
+    private static class Candidate {
+        private final String key;
+        private final Entry entry;
+        private final int frequency;
+
+        private Candidate(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+            this.frequency = entry.frequency.get();
+        }
+    }
+
+    /**
+     * 缓存的文档，source为空时表示失效标记，只记录写入后的版本
+     */
+    private static class Entry {
+        private final String type;
+        private final String id;
+        private final long seqNo;
+        private final long primaryTerm;
+        private final long version;
+        private final BytesReference source;
+        private final long expireAt;
+        /** 访问频率 */
+        private final AtomicInteger frequency = new AtomicInteger();
+
+        private Entry(String type, String id, long seqNo, long primaryTerm, long version, BytesReference source, long expireAt) {
+            this.type = type;
+            this.id = id;
+            this.seqNo = seqNo;
+            this.primaryTerm = primaryTerm;
+            this.version = version;
+            this.source = source;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expireAt > 0;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchReadBatcher
+ * @ProjectName elasticsearch-crud
+ * @Description: 单文档读请求合并器：多个线程并发提交的get请求，在时间窗口内或达到数量上限时合并为一次_mget请求，
+ * 同一批次内重复的文档只查询一次，每个调用方仍然得到自己文档的响应或异常。
+ * @date 2026/10/17 18:20
+ */
+public class ElasticsearchReadBatcher extends ElasticsearchBatcher<GetRequest, GetResponse> {
+    private final RestHighLevelClient client;
+
+    /**
+     * @param client  es客户端；
+     * @param window  合并等待时间窗口（毫秒）；
+     * @param maxSize 每次合并的最大请求数；
+     */
+    public ElasticsearchReadBatcher(RestHighLevelClient client, long window, int maxSize) {
+        super("read", window, maxSize);
+        this.client = client;
+        start();
+    }
+
+    /**
+     * 提交get请求并等待所在批次执行完成。
+     *
+     * @param request get请求；
+     * @return 该文档的响应，文档不存在时isExists()为false；
+     * @throws Exception 索引不存在等失败时抛出ElasticsearchException，status与单文档请求一致。
+     */
+    public GetResponse execute(GetRequest request) throws Exception {
+        return submit(request);
+    }
+
+    @Override
+    protected void process(List<Pending<GetRequest, GetResponse>> batch) {
+        // 相同的文档只查询一次
+        Map<String, List<Pending<GetRequest, GetResponse>>> groups = new LinkedHashMap<>();
+        for (Pending<GetRequest, GetResponse> get : batch) {
+            groups.computeIfAbsent(key(get.request), key -> new ArrayList<>()).add(get);
+        }
+
+        MultiGetRequest multiGetRequest = new MultiGetRequest();
+        for (List<Pending<GetRequest, GetResponse>> group : groups.values()) {
+            GetRequest request = group.get(0).request;
+            MultiGetRequest.Item item = new MultiGetRequest.Item(request.index(), request.type(), request.id())
+                    .routing(request.routing())
+                    .fetchSourceContext(request.fetchSourceContext());
+            if (request.storedFields() != null) {
+                item.storedFields(request.storedFields());
+            }
+            multiGetRequest.add(item);
+        }
+
+        MultiGetResponse multiGetResponse;
+        try {
+            multiGetResponse = client.mget(multiGetRequest, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            for (Pending<GetRequest, GetResponse> get : batch) {
+                get.future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        // 响应条目与请求顺序一致
+        MultiGetItemResponse[] items = multiGetResponse.getResponses();
+        int i = 0;
+        for (List<Pending<GetRequest, GetResponse>> group : groups.values()) {
+            MultiGetItemResponse item = items[i++];
+            for (int j = 0; j < group.size(); j++) {
+                Pending<GetRequest, GetResponse> get = group.get(j);
+                if (item.isFailed()) {
+                    get.future.completeExceptionally(failure(item.getFailure()));
+                } else {
+                    // getSourceAsMap()缓存的Map可以被调用方修改，相同文档的其他调用方各自得到新的GetResponse
+                    get.future.complete(j == 0 ? item.getResponse() : copy(item.getResponse()));
+                }
+            }
+        }
+        logger.debug("[ReadBatcher]合并查询请求数:{}，文档数:{}", batch.size(), items.length);
+    }
+
+    /**
+     * _mget条目的失败解析后不带http状态，索引不存在时还原为NOT_FOUND，与单文档get一致
+     */
+    static ElasticsearchException failure(MultiGetResponse.Failure failure) {
+        String message = failure.getMessage();
+        if (message != null && message.contains("index_not_found_exception")) {
+            return new ElasticsearchStatusException(message, RestStatus.NOT_FOUND, failure.getFailure());
+        }
+        Exception cause = failure.getFailure();
+        return cause instanceof ElasticsearchException
+                ? (ElasticsearchException) cause : new ElasticsearchException(message, cause);
+    }
+
+    /**
+     * 复制响应：共用_source字节，getSourceAsMap()各自解析
+     */
+    private static GetResponse copy(GetResponse response) {
+        return new GetResponse(new GetResult(response.getIndex(), response.getType(), response.getId(),
+                response.getSeqNo(), response.getPrimaryTerm(), response.getVersion(), response.isExists(),
+                response.getSourceInternal(), new HashMap<>(response.getFields())));
+    }
+
+    /**
+     * 索引、类型、id、路由及返回字段都相同的请求可以共用一个结果
+     */
+    private static String key(GetRequest request) {
+        FetchSourceContext fetchSource = request.fetchSourceContext();
+        return request.index() + "/" + request.type() + "/" + request.id() + "/" + request.routing()
+                + "/" + Arrays.toString(request.storedFields())
+                + (fetchSource == null ? "" : "/" + fetchSource.fetchSource()
+                + Arrays.toString(fetchSource.includes()) + Arrays.toString(fetchSource.excludes()));
+    }
+}
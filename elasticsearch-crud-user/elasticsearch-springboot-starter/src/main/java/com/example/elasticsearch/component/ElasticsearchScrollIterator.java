@@ -0,0 +1,189 @@
+package com.example.elasticsearch.component;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchScrollIterator
+ * @ProjectName elasticsearch-crud
+ * @Description: 基于scroll的流式读取：调用方处理当前批次时，后台已经在查询下一批次，
+ * 内存中最多保留两个批次；读取完毕或关闭时清除scroll上下文。
+ * @date 2026/10/17 17:10
+ */
+public class ElasticsearchScrollIterator<T> implements Iterator<T>, Closeable {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final RestHighLevelClient client;
+    private final TimeValue keepAlive;
+    private final Function<SearchHit, T> mapper;
+
+    private String scrollId;
+    private Iterator<SearchHit> current = Collections.emptyIterator();
+    /** 预取中的下一批次 */
+    private CompletableFuture<SearchResponse> next;
+    /** 需要读取的文档总数及已读取的文档数 */
+    private long total = -1;
+    private long fetched = 0;
+    private boolean exhausted = false;
+    private volatile boolean closed = false;
+
+    /**
+     * 执行第一次查询并开始预取下一批次
+     *
+     * @param client  es客户端；
+     * @param request 查询请求，批次大小取request.source().size()；
+     * @param keepAlive scroll上下文保持时间；
+     * @param mapper  文档转换；
+     * @throws Exception
+     */
+    public ElasticsearchScrollIterator(RestHighLevelClient client, SearchRequest request, TimeValue keepAlive,
+                                       Function<SearchHit, T> mapper) throws Exception {
+        this.client = client;
+        this.keepAlive = keepAlive;
+        this.mapper = mapper;
+
+        request.scroll(keepAlive);
+        accept(client.search(request, RequestOptions.DEFAULT));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (exhausted || closed) {
+                return false;
+            }
+            accept(await(next));
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return mapper.apply(current.next());
+    }
+
+    /**
+     * 转换为Stream，Stream关闭时清除scroll上下文，建议配合try-with-resources使用
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * 已读取的文档数
+     */
+    public long getFetched() {
+        return fetched;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        // 预取中的批次返回后，如果scrollId有变化也需要清除
+        CompletableFuture<SearchResponse> pending = next;
+        if (pending != null && !pending.isDone()) {
+            pending.thenAccept(response -> {
+                if (response.getScrollId() != null && !response.getScrollId().equals(scrollId)) {
+                    clearScroll(response.getScrollId());
+                }
+            });
+        }
+        clearScroll(scrollId);
+    }
+
+    private void accept(SearchResponse response) {
+        scrollId = response.getScrollId();
+        SearchHit[] hits = response.getHits().getHits();
+        current = Arrays.asList(hits).iterator();
+        fetched += hits.length;
+
+        TotalHits totalHits = response.getHits().getTotalHits();
+        if (total < 0 && totalHits != null && totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+            total = totalHits.value;
+        }
+
+        // 空批次或已读取全部文档时不再预取，提前释放scroll上下文
+        if (hits.length == 0 || (total >= 0 && fetched >= total)) {
+            exhausted = true;
+            close();
+        } else {
+            prefetch();
+        }
+    }
+
+    private void prefetch() {
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId);
+        scrollRequest.scroll(keepAlive);
+        client.scrollAsync(scrollRequest, RequestOptions.DEFAULT, new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                future.complete(searchResponse);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        next = future;
+    }
+
+    private SearchResponse await(CompletableFuture<SearchResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            close();
+            throw new RuntimeException("[Elasticsearch]The scroll query fails.", e.getCause());
+        }
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        try {
+            ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+            clearScrollRequest.addScrollId(scrollId);
+            client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            logger.warn("[ScrollIterator]清除scroll上下文失败，将在{}后自动过期。", keepAlive, e);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchSearchCache
+ * @ProjectName elasticsearch-crud
+ * @Description: 查询结果缓存：以索引、routing、preference及规范化后的查询json（字段按名称排序）的摘要为key缓存SearchResponse，
+ * 每个索引维护一个写入代数，本模板的写操作使代数加1，代数变化后该索引的缓存全部失效。
+ * 按缓存数量和结果大小淘汰最久未使用的查询。
+ * 注意：按查询时传入的索引名记录代数，通过别名查询、通过索引名写入时缓存要到过期后才失效；包含通配符的查询不缓存。
+ * @date 2026/10/17 22:10
+ */
+public class ElasticsearchSearchCache {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /** 每个文档除_source外的估算大小（字节） */
+    private final static int HIT_OVERHEAD = 128;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    /** 缓存结果的最大总大小（字节） */
+    private final long maxBytes;
+    /** 存活时间（纳秒） */
+    private final long ttl;
+    /** 索引刷新间隔（纳秒） */
+    private final long refreshInterval;
+
+    /** 按访问顺序排列，最久未使用的在前 */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param enabled         是否开启；
+     * @param maxEntries      最多缓存的查询数；
+     * @param maxSize         缓存结果的最大总大小（MB）；
+     * @param ttl             存活时间（秒）；
+     * @param refreshInterval 索引刷新间隔（毫秒）；
+     */
+    public ElasticsearchSearchCache(boolean enabled, int maxEntries, int maxSize, long ttl, long refreshInterval) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxSize * 1024L * 1024L;
+        this.ttl = TimeUnit.SECONDS.toNanos(ttl);
+        this.refreshInterval = TimeUnit.MILLISECONDS.toNanos(refreshInterval);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 查询缓存，未命中时执行查询并缓存结果
+     *
+     * @param request  查询请求；
+     * @param executor 执行查询；
+     * @return 查询结果，命中时返回缓存的SearchResponse，调用方不能修改。
+     * @throws Exception
+     */
+    public SearchResponse search(SearchRequest request, Callable<SearchResponse> executor) throws Exception {
+        if (!enabled || request.source() == null || request.scroll() != null) {
+            return executor.call();
+        }
+        String[] indices = request.indices();
+        for (String index : indices) {
+            if (index.contains("*")) {
+                return executor.call();
+            }
+        }
+
+        String key = key(request);
+        // 查询前记录代数，查询期间有写入时结果不缓存
+        long[] snapshot = snapshot(indices);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isValid(snapshot)) {
+                    hits.incrementAndGet();
+                    return entry.response;
+                }
+                remove(key);
+            }
+        }
+        misses.incrementAndGet();
+
+        SearchResponse response = executor.call();
+        if (response.getFailedShards() == 0 && !response.isTimedOut() && isStable(indices, snapshot)) {
+            put(key, new Entry(response, snapshot, weight(response), System.nanoTime() + ttl));
+        }
+        return response;
+    }
+
+    /**
+     * 索引被写入后使该索引的缓存失效
+     */
+    public void invalidate(String indexName) {
+        if (!enabled) {
+            return;
+        }
+        Generation generation = generations.computeIfAbsent(indexName, name -> new Generation());
+        generation.value.incrementAndGet();
+        generation.lastWrite = System.nanoTime();
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * 当前缓存的查询数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 当前缓存结果的估算总大小（字节）
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        if (entry.weight > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.weight;
+        }
+        bytes += entry.weight;
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            bytes -= eldest.weight;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.weight;
+        }
+    }
+
+    private long[] snapshot(String[] indices) {
+        long[] snapshot = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            Generation generation = generations.get(indices[i]);
+            snapshot[i] = generation == null ? 0 : generation.value.get();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 查询期间没有写入，并且距最近一次写入已超过刷新间隔
+     */
+    private boolean isStable(String[] indices, long[] snapshot) {
+        long now = System.nanoTime();
+        for (int i = 0; i < indices.length; i++) {
+            Generation generation = generations.get(indices[i]);
+            if (generation == null) {
+                continue;
+            }
+            if (generation.value.get() != snapshot[i] || now - generation.lastWrite < refreshInterval) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 缓存key：排序后的索引名、routing、preference及规范化的查询json的SHA-256摘要，字段顺序不同的相同查询得到相同的key。
+     * routing和preference决定查询的分片及副本，结果可能不同，不能共用缓存。
+     */
+    static String key(SearchRequest request) throws IOException {
+        String[] indices = request.indices().clone();
+        Arrays.sort(indices);
+        Map<String, Object> source = XContentHelper.convertToMap(
+                XContentHelper.toXContent(request.source(), XContentType.JSON, false), false, XContentType.JSON).v2();
+
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        builder.value(canonical(source));
+        String text = String.join(",", indices) + "\n" + request.routing() + "\n" + request.preference()
+                + "\n" + Strings.toString(builder);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object canonical(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                sorted.put(entry.getKey(), canonical(entry.getValue()));
+            }
+            return sorted;
+        }
+        if (value instanceof List) {
+            return ((List<Object>) value).stream().map(ElasticsearchSearchCache::canonical).collect(Collectors.toList());
+        }
+        return value;
+    }
+
+    /**
+     * 估算查询结果占用的内存：文档的_source大小加固定开销，聚合结果按json大小估算
+     */
+    private long weight(SearchResponse response) {
+        long weight = HIT_OVERHEAD;
+        for (SearchHit hit : response.getHits().getHits()) {
+            weight += HIT_OVERHEAD;
+            BytesReference source = hit.getSourceRef();
+            if (source != null) {
+                weight += source.length();
+            }
+        }
+        if (response.getAggregations() != null) {
+            try {
+                XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+                response.getAggregations().toXContent(builder, ToXContent.EMPTY_PARAMS);
+                weight += BytesReference.bytes(builder.endObject()).length();
+            } catch (IOException e) {
+                logger.warn("[SearchCache]估算聚合结果大小失败:", e);
+                weight = Long.MAX_VALUE;
+            }
+        }
+        return weight;
+    }
+
+    private static class Generation {
+        private final AtomicLong value = new AtomicLong();
+        /** 最近一次写入的时间（纳秒） */
+        private volatile long lastWrite;
+    }
+
+    private static class Entry {
+        private final SearchResponse response;
+        /** 缓存时各索引的代数 */
+        private final long[] generations;
+        private final long weight;
+        private final long expireAt;
+
+        private Entry(SearchResponse response, long[] generations, long weight, long expireAt) {
+            this.response = response;
+            this.generations = generations;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isValid(long[] current) {
+            return System.nanoTime() - expireAt < 0 && Arrays.equals(generations, current);
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.example.elasticsearch.component;
 
 import org.elasticsearch.index.query.*;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * @author jackie wang
@@ -26,6 +33,69 @@ public interface ElasticsearchSearchQuery {
      */
     Map get(String indexName, String type, String id) throws Exception;
 
+    /**
+     * 根据id查询文档，只返回指定的字段
+     * 控制台查询：
+     * GET posts/_doc/1?_source_includes=user,postDate
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param sourceFilter 返回字段，为空时返回全部字段；不支持docValueFields，指定时抛出IllegalArgumentException；
+     * @return
+     */
+    Map<String, Object> get(String indexName, String type, String id, SourceFilter sourceFilter) throws Exception;
+
+    /**
+     * 根据id查询文档，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param clazz 文档类型；
+     * @return 文档不存在时返回null。
+     */
+    <T> T get(String indexName, String type, String id, Class<T> clazz) throws Exception;
+
+    /**
+     * 根据id查询文档，只返回指定的字段，并直接解码为指定类型，未返回的字段为默认值
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param sourceFilter 返回字段，为空时返回全部字段；不支持docValueFields，指定时抛出IllegalArgumentException；
+     * @param clazz 文档类型；
+     * @return 文档不存在时返回null。
+     */
+    <T> T get(String indexName, String type, String id, SourceFilter sourceFilter, Class<T> clazz) throws Exception;
+
+    /**
+     * 根据id批量查询文档（_mget），一次请求返回全部文档。
+     * 控制台查询：
+     * GET posts/_mget
+     * {"docs":[{"_id":"1"},{"_id":"2"}]}
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param ids id集合；
+     * @return key为id，value为文档内容，按ids的顺序排列，不存在的文档不返回。
+     * @throws Exception
+     */
+    Map<String, Map<String, Object>> multiGet(String indexName, String type, Collection<String> ids) throws Exception;
+
+    /**
+     * 根据id批量查询文档（_mget），只返回指定的字段
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param ids id集合；
+     * @param sourceFilter 返回字段，为空时返回全部字段；不支持docValueFields，指定时抛出IllegalArgumentException；
+     * @return key为id，value为文档内容，按ids的顺序排列，不存在的文档不返回。
+     * @throws Exception
+     */
+    Map<String, Map<String, Object>> multiGet(String indexName, String type, Collection<String> ids,
+                                              SourceFilter sourceFilter) throws Exception;
+
     /**
      * 根据id判断文档是否存在
      *
@@ -49,6 +119,119 @@ public interface ElasticsearchSearchQuery {
     List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
                                           String sortFieldName, QueryBuilder queryBuilder) throws Exception;
 
+    /**
+     * es文档分页查询，只返回指定的字段
+     * 控制台查询：
+     * GET posts/_search
+     * {"from":0,"size":10,"query":{"match_all":{}},"_source":{"includes":["user","postDate"]},"docvalue_fields":["likes"]}
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索，term/terms/match/multiMatch/bool等任意查询条件；
+     * @param sourceFilter  返回字段，为空时返回全部字段；
+     * @return
+     * @throws Exception
+     */
+    List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
+                                          String sortFieldName, QueryBuilder queryBuilder,
+                                          SourceFilter sourceFilter) throws Exception;
+
+    /**
+     * es文档分页查询，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @param clazz         文档类型；
+     * @return
+     * @throws Exception
+     */
+    <T> List<T> queryByPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                            QueryBuilder queryBuilder, Class<T> clazz) throws Exception;
+
+    /**
+     * es文档分页查询，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @param sourceFilter  返回字段，为空时返回全部字段；
+     * @param clazz         文档类型；
+     * @return
+     * @throws Exception
+     */
+    <T> List<T> queryByPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                            QueryBuilder queryBuilder, SourceFilter sourceFilter, Class<T> clazz) throws Exception;
+
+    /**
+     * 匹配的文档数
+     * 控制台查询：
+     * GET posts/_count
+     * {"query":{"term":{"user":"kimchy"}}}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时统计全部文档；
+     * @return
+     * @throws Exception
+     */
+    long count(String indexName, QueryBuilder queryBuilder) throws Exception;
+
+    /**
+     * es文档分页查询，同时返回匹配的文档总数。queryByPage只返回当前页文档，不统计总数。
+     *
+     * @param indexName      索引；
+     * @param pageSize       页显示大小；
+     * @param pageNow        当前页；
+     * @param sortFieldName  排序字段；
+     * @param queryBuilder   全文检索；
+     * @param sourceFilter   返回字段，为空时返回全部字段；
+     * @param trackTotalHits 总数统计上限：Page.TRACK_TOTAL_HITS_DISABLED不统计，Page.TRACK_TOTAL_HITS_ACCURATE精确统计，
+     *                       其他值统计到该值为止，超过时relation为gte；
+     * @return
+     * @throws Exception
+     */
+    Page<Map<String, Object>> queryPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                                        QueryBuilder queryBuilder, SourceFilter sourceFilter, int trackTotalHits) throws Exception;
+
+    /**
+     * es文档分页查询，同时返回匹配的文档总数，文档直接解码为指定类型
+     *
+     * @param indexName      索引；
+     * @param pageSize       页显示大小；
+     * @param pageNow        当前页；
+     * @param sortFieldName  排序字段；
+     * @param queryBuilder   全文检索；
+     * @param sourceFilter   返回字段，为空时返回全部字段；
+     * @param trackTotalHits 总数统计上限，同queryPage；
+     * @param clazz          文档类型；
+     * @return
+     * @throws Exception
+     */
+    <T> Page<T> queryPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                          QueryBuilder queryBuilder, SourceFilter sourceFilter, int trackTotalHits, Class<T> clazz) throws Exception;
+
+    /**
+     * es文档分页查询，返回延迟解析的视图：访问字段时才解析该字段，未访问的字段不会被解码。
+     * 适合只展示大文档中少数字段的列表查询。
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @param sourceFilter  返回字段，为空时返回全部字段；
+     * @return
+     * @throws Exception
+     */
+    List<HitView> queryViewsByPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                                   QueryBuilder queryBuilder, SourceFilter sourceFilter) throws Exception;
+
     /**
      * 分页查询文档。
      * 控制台查询：
@@ -207,6 +390,123 @@ public interface ElasticsearchSearchQuery {
      */
     public String aggregationQueryByPage(String indexName, TermsAggregationBuilder termsAggregationBuilder) throws Exception;
 
+    /**
+     * 分桶聚合查询：直接返回桶列表，嵌套的子聚合转换为桶的指标或下一层桶，不经过json序列化。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"query":{"match_all":{}},"aggs":{"by_company":{"terms":{"field":"company.keyword"},"aggs":{"average_age":{"avg":{"field":"age"}}}}}}
+     *
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param aggregationBuilder 分桶聚合（terms/histogram/date_histogram/range等）；例如：
+     *                           AggregationBuilders.terms("by_company").field("company.keyword")
+     *                                   .subAggregation(AggregationBuilders.avg("average_age").field("age"));
+     *                           取值：bucket.getKeyAsString()、bucket.getDocCount()、bucket.getMetric("average_age")
+     * @return 桶列表。
+     * @throws Exception
+     */
+    List<AggregationBucket> aggregationQuery(String indexName, QueryBuilder queryBuilder, AggregationBuilder aggregationBuilder) throws Exception;
+
+    /**
+     * 去重计数（cardinality）：HyperLogLog++近似计算，精度阈值以下的计数接近精确，内存约为precisionThreshold * 8字节。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"aggs":{"cardinality":{"cardinality":{"field":"user.keyword","precision_threshold":3000}}}}
+     *
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param field              字段，text字段使用keyword子字段；
+     * @param precisionThreshold 精度阈值，最大40000，为空时使用es默认值3000；
+     * @return 去重后的近似数量。
+     * @throws Exception
+     */
+    long cardinality(String indexName, QueryBuilder queryBuilder, String field, Long precisionThreshold) throws Exception;
+
+    /**
+     * 百分位数（percentiles）：TDigest近似计算，例如接口耗时的P50/P95/P99。
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时统计全部文档；
+     * @param field        数值字段；
+     * @param percents     百分位，例如：50, 95, 99；为空时使用es默认值1,5,25,50,75,95,99；
+     * @return key为百分位，value为该百分位的值，没有文档时为NaN。
+     * @throws Exception
+     */
+    Map<Double, Double> percentiles(String indexName, QueryBuilder queryBuilder, String field, double... percents) throws Exception;
+
+    /**
+     * 百分位排名（percentile_ranks）：TDigest近似计算指定值所处的百分位，例如耗时小于500毫秒的请求占比。
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时统计全部文档；
+     * @param field        数值字段；
+     * @param values       需要计算排名的值，不能为空；
+     * @return key为值，value为小于等于该值的文档百分比。
+     * @throws Exception
+     */
+    Map<Double, Double> percentileRanks(String indexName, QueryBuilder queryBuilder, String field, double... values) throws Exception;
+
+    /**
+     * 采样聚合（sampler）：每个分片只取相关度最高的shardSize个文档执行子聚合。
+     *
+     * @param indexName           索引；
+     * @param queryBuilder        查询条件，为空时按文档顺序采样；
+     * @param shardSize           每个分片的采样文档数；
+     * @param aggregationBuilders 在样本上执行的子聚合；
+     * @return 样本：getDocCount()为样本文档数，子聚合通过getMetric/getBuckets/getAggregation获取。
+     * @throws Exception
+     */
+    AggregationBucket sampler(String indexName, QueryBuilder queryBuilder, int shardSize,
+                              AggregationBuilder... aggregationBuilders) throws Exception;
+
+    /**
+     * 多样化采样聚合（diversified_sampler）：限制样本中同一字段值的文档数，避免少数高频值占满样本。
+     *
+     * @param indexName           索引；
+     * @param queryBuilder        查询条件，为空时按文档顺序采样；
+     * @param shardSize           每个分片的采样文档数；
+     * @param field               去重字段；
+     * @param maxDocsPerValue     样本中同一字段值的最大文档数；
+     * @param aggregationBuilders 在样本上执行的子聚合；
+     * @return 样本：getDocCount()为样本文档数，子聚合通过getMetric/getBuckets/getAggregation获取。
+     * @throws Exception
+     */
+    AggregationBucket diversifiedSampler(String indexName, QueryBuilder queryBuilder, int shardSize, String field,
+                                         int maxDocsPerValue, AggregationBuilder... aggregationBuilders) throws Exception;
+
+    /**
+     * composite聚合流式查询：按after_key逐页读取全部桶，客户端和集群的内存都只与每页桶数有关，
+     * 适合对用户id等高基数字段分组。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"aggs":{"by_user":{"composite":{"size":1000,"sources":[{"user":{"terms":{"field":"user.keyword"}}}],"after":{"user":"kimchy"}}}}}
+     *
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param aggregationBuilder composite聚合，每页桶数取size()；例如：
+     *                           AggregationBuilders.composite("by_user", Collections.singletonList(
+     *                                   new TermsValuesSourceBuilder("user").field("user.keyword"))).size(1000);
+     *                           桶的key为Map，例如：bucket.getKey() -> {"user":"kimchy"}
+     * @return 延迟读取的桶，遍历到当前页末尾时才等待下一页；Stream关闭时停止预取，建议配合try-with-resources使用。
+     *         翻页使用aggregationBuilder的副本，调用方的aggregationBuilder不会被修改。
+     * @throws Exception
+     */
+    Stream<AggregationBucket> compositeAggregation(String indexName, QueryBuilder queryBuilder,
+                                                   CompositeAggregationBuilder aggregationBuilder) throws Exception;
+
+    /**
+     * composite聚合流式查询，逐个桶回调
+     *
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param aggregationBuilder composite聚合，每页桶数取size()；
+     * @param consumer           桶处理；
+     * @return 处理的桶数。
+     * @throws Exception
+     */
+    long compositeAggregation(String indexName, QueryBuilder queryBuilder, CompositeAggregationBuilder aggregationBuilder,
+                              Consumer<AggregationBucket> consumer) throws Exception;
+
 
     /**
      * 搜索建议
@@ -225,4 +525,241 @@ public interface ElasticsearchSearchQuery {
      */
     public String suggestQueryByPage(String indexName, SuggestBuilder suggestBuilder) throws Exception;
 
+    /**
+     * 输入联想（completion suggester）：按前缀返回建议，相同文本的建议只返回一个。
+     * 热点前缀在spring.elasticsearch.suggest.cacheTtl内直接返回本地缓存的结果。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"_source":["user"],"suggest":{"suggest":{"prefix":"jac","completion":{"field":"suggest","size":10,"skip_duplicates":true}}}}
+     *
+     * @param indexName    索引；
+     * @param field        completion类型的字段；
+     * @param prefix       输入的前缀；
+     * @param size         建议数；
+     * @param sourceFilter 建议中返回的文档字段（payload），为空时返回全部字段；
+     * @return 按分数降序的建议列表，不可修改。
+     * @throws Exception
+     */
+    List<SuggestOption> completionSuggest(String indexName, String field, String prefix, int size,
+                                          SourceFilter sourceFilter) throws Exception;
+
+    /**
+     * 拼写纠错（term suggester）：按输入文本中每个词返回相近的候选词，热点文本同样使用本地缓存。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"suggest":{"suggest":{"text":"kimchi","term":{"field":"user","size":5}}}}
+     *
+     * @param indexName 索引；
+     * @param field     字段；
+     * @param text      输入文本；
+     * @param size      每个词的候选词数；
+     * @return 各个词的候选词，每个词内按分数降序，不可修改。
+     * @throws Exception
+     */
+    List<SuggestOption> termSuggest(String indexName, String field, String text, int size) throws Exception;
+
+    /**
+     * 预编译查询：将查询结构注册为mustache stored search template，es只在注册时解析一次，
+     * 之后每次执行只发送模板id和参数。查询中的变量写为"{{name}}"。
+     * 控制台查询：
+     * POST _scripts/posts_by_user
+     * {"script":{"lang":"mustache","source":"{\"query\":{\"term\":{\"user\":\"{{user}}\"}}}"}}
+     *
+     * @param templateId          模板id；
+     * @param searchSourceBuilder 查询结构，例如：new SearchSourceBuilder().query(QueryBuilders.termQuery("user", "{{user}}"))；
+     * @return 预编译查询，线程安全，可以保存在字段中重复使用。
+     * @throws Exception
+     */
+    PreparedQuery prepareQuery(String templateId, SearchSourceBuilder searchSourceBuilder) throws Exception;
+
+    /**
+     * 预编译查询：查询结构为json格式的mustache模板，from/size等数值参数需要直接写在模板中，例如：
+     * {"from":{{from}},"size":{{size}},"query":{"term":{"user":"{{user}}"}}}
+     *
+     * @param templateId 模板id；
+     * @param source     mustache模板；
+     * @return 预编译查询。
+     * @throws Exception
+     */
+    PreparedQuery prepareQuery(String templateId, String source) throws Exception;
+
+    /**
+     * 执行预编译查询
+     * 控制台查询：
+     * GET posts/_search/template
+     * {"id":"posts_by_user","params":{"user":"kimchy"}}
+     *
+     * @param indexName     索引；
+     * @param preparedQuery prepareQuery返回的预编译查询；
+     * @param params        参数，必须包含模板中的全部变量；
+     * @return 查询结果。
+     * @throws Exception
+     */
+    List<Map<String, Object>> query(String indexName, PreparedQuery preparedQuery, Map<String, Object> params) throws Exception;
+
+    /**
+     * 执行预编译查询，将_source直接解码为指定类型
+     *
+     * @param indexName     索引；
+     * @param preparedQuery prepareQuery返回的预编译查询；
+     * @param params        参数，必须包含模板中的全部变量；
+     * @param clazz         文档类型；
+     * @return 查询结果。
+     * @throws Exception
+     */
+    <T> List<T> query(String indexName, PreparedQuery preparedQuery, Map<String, Object> params, Class<T> clazz) throws Exception;
+
+    /**
+     * 游标分页查询（search_after），以唯一字段作为排序的唯一性补充。
+     * 与queryByPage不同，每一页只从上一页最后一条文档的排序值继续查询，深分页与第一页开销相同，不受max_result_window限制。
+     * 次排序字段需要有doc values，不要使用_id：_id排序需要在堆内存中加载fielddata。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":10,"query":{"match_all":{}},"search_after":[1569825600000,"jackie 3"],"sort":[{"postDate":{"order":"desc"}},{"user.keyword":{"order":"asc"}}]}
+     *
+     * @param indexName       索引；
+     * @param pageSize        页显示大小；
+     * @param sortFieldName   排序字段，为空时按分数(_score)降序排序；
+     * @param tiebreakerField 排序值相同时的次排序字段，每个文档取值必须唯一，建议使用保存了文档id的keyword字段；
+     * @param queryBuilder    查询条件；
+     * @param cursor          上一页返回的游标，查询第一页时为空；
+     * @return 当前页文档及下一页的游标。
+     * @throws Exception
+     */
+    CursorPage<Map<String, Object>> queryByCursor(String indexName, Integer pageSize, String sortFieldName,
+                                                  String tiebreakerField, QueryBuilder queryBuilder, String cursor) throws Exception;
+
+    /**
+     * 游标分页查询（search_after），只返回指定的字段
+     *
+     * @param indexName       索引；
+     * @param pageSize        页显示大小；
+     * @param sortFieldName   排序字段，为空时按分数(_score)降序排序；
+     * @param tiebreakerField 排序值相同时的次排序字段，每个文档取值必须唯一；
+     * @param queryBuilder    查询条件；
+     * @param sourceFilter    返回字段，为空时返回全部字段；
+     * @param cursor          上一页返回的游标，查询第一页时为空；
+     * @return 当前页文档及下一页的游标。
+     * @throws Exception
+     */
+    CursorPage<Map<String, Object>> queryByCursor(String indexName, Integer pageSize, String sortFieldName,
+                                                  String tiebreakerField, QueryBuilder queryBuilder,
+                                                  SourceFilter sourceFilter, String cursor) throws Exception;
+
+    /**
+     * 流式读取全部匹配的文档：按批次滚动查询（scroll），调用方处理当前批次时后台预取下一批次，内存占用与结果集大小无关。
+     * 读取完毕时自动清除scroll上下文，提前结束时需要关闭Stream，例如：
+     * try (Stream<Map<String, Object>> stream = elasticsearchTemplate.stream("posts", QueryBuilders.matchAllQuery())) {
+     *     stream.forEach(...);
+     * }
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时读取全部文档；
+     * @return 文档流，每个文档包含_id。
+     * @throws Exception
+     */
+    Stream<Map<String, Object>> stream(String indexName, QueryBuilder queryBuilder) throws Exception;
+
+    /**
+     * 流式读取全部匹配的文档，只返回指定的字段
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时读取全部文档；
+     * @param sourceFilter 返回字段，为空时返回全部字段；
+     * @return 文档流，每个文档包含_id。
+     * @throws Exception
+     */
+    Stream<Map<String, Object>> stream(String indexName, QueryBuilder queryBuilder, SourceFilter sourceFilter) throws Exception;
+
+    /**
+     * 流式读取全部匹配的文档，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时读取全部文档；
+     * @param sourceFilter 返回字段，为空时返回全部字段；
+     * @param clazz        文档类型；
+     * @return 文档流。
+     * @throws Exception
+     */
+    <T> Stream<T> stream(String indexName, QueryBuilder queryBuilder, SourceFilter sourceFilter, Class<T> clazz) throws Exception;
+
+    /**
+     * 切片并行导出全部匹配的文档，切片在模板内置的线程池中执行，切片数超过scroll.exportThreads时排队执行。
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时导出全部文档；
+     * @param slices       切片数，建议等于索引的主分片数；
+     * @param consumer     文档处理，多个切片线程并发调用，必须线程安全；
+     * @return 导出句柄，可以查询每个切片的进度、等待完成或取消。
+     * @throws Exception
+     */
+    ElasticsearchExport<Map<String, Object>> export(String indexName, QueryBuilder queryBuilder, int slices,
+                                                    Consumer<Map<String, Object>> consumer) throws Exception;
+
+    /**
+     * 切片并行导出全部匹配的文档：打开slices个切片scroll（slice.id/slice.max），在指定线程池中并行读取，
+     * 导出速度随分片数扩展，而不是受限于单个http连接。
+     * 控制台查询（其中一个切片）：
+     * GET posts/_search?scroll=1m
+     * {"slice":{"id":0,"max":4},"query":{"match_all":{}},"sort":["_doc"]}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时导出全部文档；
+     * @param slices       切片数，建议等于索引的主分片数；
+     * @param consumer     文档处理，多个切片线程并发调用，必须线程安全；
+     * @param executor     执行切片的线程池，并发数不足时切片会排队执行；
+     * @return 导出句柄，可以查询每个切片的进度、等待完成或取消。
+     * @throws Exception
+     */
+    ElasticsearchExport<Map<String, Object>> export(String indexName, QueryBuilder queryBuilder, int slices,
+                                                    Consumer<Map<String, Object>> consumer, Executor executor) throws Exception;
+
+    /**
+     * 切片并行导出全部匹配的文档，只返回指定的字段
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时导出全部文档；
+     * @param sourceFilter 返回字段，为空时返回全部字段；
+     * @param slices       切片数，建议等于索引的主分片数；
+     * @param consumer     文档处理，多个切片线程并发调用，必须线程安全；
+     * @param executor     执行切片的线程池，并发数不足时切片会排队执行；
+     * @return 导出句柄，可以查询每个切片的进度、等待完成或取消。
+     * @throws Exception
+     */
+    ElasticsearchExport<Map<String, Object>> export(String indexName, QueryBuilder queryBuilder, SourceFilter sourceFilter,
+                                                    int slices, Consumer<Map<String, Object>> consumer,
+                                                    Executor executor) throws Exception;
+
+    /**
+     * 多查询合并（_msearch）：多个分页查询及聚合查询在一次请求中执行，总耗时约等于最慢的一个查询。
+     * 每个查询的失败相互隔离，失败的查询在结果中isFailed()为true。
+     * 控制台查询：
+     * GET _msearch
+     * {"index":"posts"}
+     * {"query":{"match_all":{}},"from":0,"size":10}
+     * {"index":"posts"}
+     * {"size":0,"aggs":{"by_company":{"terms":{"field":"company.keyword"}}}}
+     *
+     * @param items 查询列表；
+     * @return 与items顺序一致的查询结果。
+     * @throws Exception
+     */
+    List<MultiSearchResult> msearch(List<MultiSearchItem> items) throws Exception;
+
+    /**
+     * 列式查询：只从doc values读取指定字段（不返回_source），每个字段构建为一列基本类型数组，用于报表计算。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":1000,"query":{"match_all":{}},"_source":false,"docvalue_fields":["likes",{"field":"postDate","format":"epoch_millis"}]}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时查询全部文档；
+     * @param size         最多返回的文档数，不能超过index.max_result_window，更多的文档请使用stream/export；
+     * @param columns      列名及类型，字段需要开启doc values（text字段不支持）；
+     * @return 列式结果。
+     * @throws Exception
+     */
+    ColumnarResult queryColumns(String indexName, QueryBuilder queryBuilder, int size,
+                                Map<String, ColumnarResult.ColumnType> columns) throws Exception;
+
 }
@@ -0,0 +1,146 @@
+package com.example.elasticsearch.component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchSuggestCache
+ * @ProjectName elasticsearch-crud
+ * @Description: 搜索建议的热点前缀缓存：输入联想中大部分前缀会被重复查询，在较短的存活时间内直接返回本地结果，
+ * 容量超出时淘汰最久未使用的前缀；同一前缀的并发请求只查询一次集群。
+ * 缓存只按存活时间失效，新写入的文档最多延迟一个存活时间出现在建议中。
+ * @date 2026/10/17 23:40
+ */
+public class ElasticsearchSuggestCache {
+    private final int maxSize;
+    /** 存活时间（纳秒） */
+    private final long ttl;
+
+    /** 按访问顺序排列，最久未使用的在前 */
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxSize 最多缓存的前缀数，小于等于0时不缓存；
+     * @param ttl     存活时间（秒），小于等于0时不缓存；
+     */
+    public ElasticsearchSuggestCache(int maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = TimeUnit.SECONDS.toNanos(ttl);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ElasticsearchSuggestCache.this.maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0 && ttl > 0;
+    }
+
+    /**
+     * 查询缓存，未命中时执行查询；同一key正在查询时等待该查询的结果
+     *
+     * @param key    缓存key；
+     * @param loader 执行查询；
+     * @return 不可修改的建议列表，同一key的调用方共用。
+     * @throws Exception
+     */
+    public List<SuggestOption> get(String key, Callable<List<SuggestOption>> loader) throws Exception {
+        if (!isEnabled()) {
+            return loader.call();
+        }
+
+        Entry entry;
+        boolean load = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null || entry.isExpired()) {
+                entry = new Entry(System.nanoTime() + ttl);
+                entries.put(key, entry);
+                load = true;
+            }
+        }
+
+        if (!load) {
+            hits.incrementAndGet();
+            return await(entry.future);
+        }
+
+        misses.incrementAndGet();
+        try {
+            List<SuggestOption> options = Collections.unmodifiableList(loader.call());
+            entry.future.complete(options);
+            return options;
+        } catch (Throwable e) {
+            // 失败的结果不缓存，等待中的请求同样失败；包括Error，否则等待中的请求会一直阻塞
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static List<SuggestOption> await(CompletableFuture<List<SuggestOption>> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry {
+        private final CompletableFuture<List<SuggestOption>> future = new CompletableFuture<>();
+        private final long expireAt;
+
+        private Entry(long expireAt) {
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expireAt > 0;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.elasticsearch.component;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.RethrottleRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.tasks.TaskId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchTask
+ * @ProjectName elasticsearch-crud
+ * @Description: es后台任务句柄：以wait_for_completion=false提交的update_by_query/delete_by_query/reindex任务，
+ * 可以查询进度、注册完成回调、取消任务及调整限速（requests_per_second）。
+ * 任务返回error或者response.failures不为空时，完成回调以异常结束。
+ * @date 2026/10/17 15:52
+ */
+public class ElasticsearchTask {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 任务类型，决定调整限速时调用的接口
+     */
+    public enum Action {
+        UPDATE_BY_QUERY,
+        DELETE_BY_QUERY,
+        REINDEX
+    }
+
+    /** 完成回调的默认轮询间隔（毫秒） */
+    private final static long POLL_INTERVAL = 1000;
+    /** 轮询遇到临时错误时的最多重试次数，间隔从POLL_INTERVAL起逐次加倍 */
+    private final static int MAX_POLL_RETRIES = 5;
+    /** 重试间隔上限（毫秒） */
+    private final static long MAX_POLL_BACKOFF = 30000;
+
+    private final RestHighLevelClient client;
+    private final ScheduledExecutorService scheduler;
+    private final TaskId taskId;
+    private final Action action;
+    /** 正在轮询完成状态的任务，轮询线程池关闭时由持有方使其回调以异常结束，可以为null */
+    private final Set<ElasticsearchTask> pollingTasks;
+
+    private volatile CompletableFuture<ElasticsearchTaskStatus> completion;
+    /** 连续失败的轮询次数，只在轮询线程中读写 */
+    private int pollFailures = 0;
+
+    /**
+     * @param client    es客户端；
+     * @param scheduler 轮询任务状态的线程池；
+     * @param taskId    任务id，格式为nodeId:id；
+     * @param action    任务类型；
+     */
+    public ElasticsearchTask(RestHighLevelClient client, ScheduledExecutorService scheduler, String taskId, Action action) {
+        this(client, scheduler, taskId, action, null);
+    }
+
+    /**
+     * @param client       es客户端；
+     * @param scheduler    轮询任务状态的线程池；
+     * @param taskId       任务id，格式为nodeId:id；
+     * @param action       任务类型；
+     * @param pollingTasks 开始轮询时登记到该集合，完成后移除；
+     */
+    public ElasticsearchTask(RestHighLevelClient client, ScheduledExecutorService scheduler, String taskId, Action action,
+                             Set<ElasticsearchTask> pollingTasks) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.taskId = new TaskId(taskId);
+        this.action = action;
+        this.pollingTasks = pollingTasks;
+    }
+
+    /**
+     * 任务id，格式为nodeId:id，可以通过GET _tasks/{taskId}查询
+     */
+    public String getTaskId() {
+        return taskId.toString();
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * 查询任务当前进度。
+     * 7.1版本的GetTaskResponse不解析任务的error及response，这里使用低级客户端查询GET _tasks/{taskId}。
+     *
+     * @return
+     * @throws Exception 任务不存在时抛出异常。
+     */
+    public ElasticsearchTaskStatus getStatus() throws Exception {
+        JSONObject result;
+        try {
+            Response response = client.getLowLevelClient().performRequest(new Request("GET", "/_tasks/" + taskId));
+            result = JSON.parseObject(EntityUtils.toString(response.getEntity()));
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == RestStatus.NOT_FOUND.getStatus()) {
+                throw new RuntimeException("[Elasticsearch]The task does not exist: " + taskId, e);
+            }
+            throw e;
+        }
+
+        JSONObject task = result.getJSONObject("task");
+        ElasticsearchTaskStatus status = new ElasticsearchTaskStatus(result.getBooleanValue("completed"),
+                task == null ? null : task.getString("description"),
+                task == null ? 0 : TimeUnit.NANOSECONDS.toMillis(task.getLongValue("running_time_in_nanos")),
+                task == null ? null : task.getJSONObject("status"));
+        status.setFailures(failures(result));
+        return status;
+    }
+
+    /**
+     * 任务本身的error，以及by-query/reindex结果中的failures（批量写入失败或者查询分片失败）
+     */
+    private static List<String> failures(JSONObject result) {
+        List<String> failures = new ArrayList<>();
+        JSONObject error = result.getJSONObject("error");
+        if (error != null) {
+            failures.add(reason(error));
+        }
+        JSONObject response = result.getJSONObject("response");
+        JSONArray items = response == null ? null : response.getJSONArray("failures");
+        if (items != null) {
+            for (int i = 0; i < items.size(); i++) {
+                JSONObject item = items.getJSONObject(i);
+                // 批量写入失败的原因在cause中，查询分片失败的原因在reason中
+                JSONObject cause = item.containsKey("cause") ? item.getJSONObject("cause") : item.getJSONObject("reason");
+                String reason = cause == null ? item.toJSONString() : reason(cause);
+                failures.add(item.containsKey("index") ? "[" + item.getString("index") + "]" + reason : reason);
+            }
+        }
+        return failures;
+    }
+
+    private static String reason(JSONObject cause) {
+        return cause.getString("type") + ": " + cause.getString("reason");
+    }
+
+    /**
+     * 任务是否已完成
+     */
+    public boolean isCompleted() throws Exception {
+        return getStatus().isCompleted();
+    }
+
+    /**
+     * 任务完成时返回最终进度，后台按固定间隔轮询任务状态。
+     * 任务执行失败时以RuntimeException结束，轮询线程池关闭时以CancellationException结束。
+     *
+     * @return
+     */
+    public CompletableFuture<ElasticsearchTaskStatus> completion() {
+        if (completion == null) {
+            synchronized (this) {
+                if (completion == null) {
+                    CompletableFuture<ElasticsearchTaskStatus> future = new CompletableFuture<>();
+                    completion = future;
+                    if (pollingTasks != null) {
+                        pollingTasks.add(this);
+                        future.whenComplete((status, e) -> pollingTasks.remove(this));
+                    }
+                    schedulePoll(POLL_INTERVAL);
+                }
+            }
+        }
+        return completion;
+    }
+
+    /**
+     * 注册任务完成回调
+     *
+     * @param callback 回调参数为任务最终进度；
+     * @return
+     */
+    public ElasticsearchTask onCompletion(Consumer<ElasticsearchTaskStatus> callback) {
+        completion().thenAccept(callback);
+        return this;
+    }
+
+    /**
+     * 取消任务
+     *
+     * @throws Exception
+     */
+    public void cancel() throws Exception {
+        CancelTasksRequest request = new CancelTasksRequest();
+        request.setTaskId(taskId);
+        client.tasks().cancel(request, RequestOptions.DEFAULT);
+        logger.info("[ElasticsearchTask]已取消任务:{}", taskId);
+    }
+
+    /**
+     * 调整任务限速
+     *
+     * @param requestsPerSecond 每秒请求数，小于等于0表示不限速；
+     * @throws Exception
+     */
+    public void rethrottle(float requestsPerSecond) throws Exception {
+        RethrottleRequest request = requestsPerSecond > 0
+                ? new RethrottleRequest(taskId, requestsPerSecond)
+                : new RethrottleRequest(taskId);
+        switch (action) {
+            case UPDATE_BY_QUERY:
+                client.updateByQueryRethrottle(request, RequestOptions.DEFAULT);
+                break;
+            case DELETE_BY_QUERY:
+                client.deleteByQueryRethrottle(request, RequestOptions.DEFAULT);
+                break;
+            case REINDEX:
+            default:
+                client.reindexRethrottle(request, RequestOptions.DEFAULT);
+                break;
+        }
+        logger.info("[ElasticsearchTask]任务:{}限速调整为:{}", taskId, requestsPerSecond);
+    }
+
+    /**
+     * 停止等待任务完成，尚未结束的完成回调以CancellationException结束。es中的任务不受影响。
+     */
+    void abandon() {
+        CompletableFuture<ElasticsearchTaskStatus> future = completion;
+        if (future != null && future.completeExceptionally(
+                new CancellationException("[Elasticsearch]Stopped polling the task: " + taskId))) {
+            logger.warn("[ElasticsearchTask]轮询已停止，任务:{}的完成回调被取消", taskId);
+        }
+    }
+
+    private void schedulePoll(long delay) {
+        try {
+            scheduler.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 轮询线程池已关闭
+            abandon();
+        }
+    }
+
+    private void poll() {
+        if (completion.isDone()) {
+            return;
+        }
+        try {
+            ElasticsearchTaskStatus status = getStatus();
+            pollFailures = 0;
+            if (!status.isCompleted()) {
+                schedulePoll(POLL_INTERVAL);
+            } else if (status.isFailed()) {
+                logger.error("[ElasticsearchTask]任务:{}执行失败，{}", taskId, status);
+                completion.completeExceptionally(new RuntimeException(
+                        "[Elasticsearch]The task failed: " + taskId + " " + status.getFailures()));
+            } else {
+                logger.info("[ElasticsearchTask]任务:{}已完成，{}", taskId, status);
+                completion.complete(status);
+            }
+        } catch (Exception e) {
+            if (!isTransient(e) || pollFailures >= MAX_POLL_RETRIES) {
+                completion.completeExceptionally(e);
+                return;
+            }
+            long backoff = Math.min(POLL_INTERVAL << ++pollFailures, MAX_POLL_BACKOFF);
+            logger.warn("[ElasticsearchTask]查询任务:{}状态失败，{}毫秒后第{}次重试:{}", taskId, backoff, pollFailures, e.toString());
+            schedulePoll(backoff);
+        }
+    }
+
+    /**
+     * 网络异常、节点不可用及限流（429、5xx）可以重试，任务不存在等错误直接失败
+     */
+    private static boolean isTransient(Exception e) {
+        if (e instanceof ResponseException) {
+            int status = ((ResponseException) e).getResponse().getStatusLine().getStatusCode();
+            return status == RestStatus.TOO_MANY_REQUESTS.getStatus() || status >= 500;
+        }
+        if (e instanceof IOException) {
+            return true;
+        }
+        if (e instanceof ElasticsearchException) {
+            RestStatus status = ((ElasticsearchException) e).status();
+            return status == RestStatus.TOO_MANY_REQUESTS || status.getStatus() >= 500;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return action + "[" + taskId + "]";
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.elasticsearch.component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchTaskStatus
+ * @ProjectName elasticsearch-crud
+ * @Description: 后台任务（update_by_query/delete_by_query/reindex）的执行进度。
+ * @date 2026/10/17 15:40
+ */
+public class ElasticsearchTaskStatus {
+    /** 任务是否已完成 */
+    private boolean completed;
+    /** 任务描述 */
+    private String description;
+    /** 已运行时间（毫秒） */
+    private long runningTime;
+    /** 需要处理的文档总数 */
+    private long total;
+    /** 已创建的文档数 */
+    private long created;
+    /** 已更新的文档数 */
+    private long updated;
+    /** 已删除的文档数 */
+    private long deleted;
+    /** 已执行的批次数 */
+    private long batches;
+    /** 版本冲突数 */
+    private long versionConflicts;
+    /** 跳过的文档数 */
+    private long noops;
+    /** 当前限速（每秒请求数），-1表示不限速 */
+    private float requestsPerSecond;
+    /** 任务失败原因，包括任务本身的error及response.failures中的批量/查询失败 */
+    private List<String> failures = Collections.emptyList();
+
+    public ElasticsearchTaskStatus() {
+    }
+
+    /**
+     * @param completed   任务是否已完成；
+     * @param description 任务描述；
+     * @param runningTime 已运行时间（毫秒）；
+     * @param status      任务返回的status内容；
+     */
+    public ElasticsearchTaskStatus(boolean completed, String description, long runningTime, Map<String, Object> status) {
+        this.completed = completed;
+        this.description = description;
+        this.runningTime = runningTime;
+        if (status != null) {
+            this.total = longValue(status.get("total"));
+            this.created = longValue(status.get("created"));
+            this.updated = longValue(status.get("updated"));
+            this.deleted = longValue(status.get("deleted"));
+            this.batches = longValue(status.get("batches"));
+            this.versionConflicts = longValue(status.get("version_conflicts"));
+            this.noops = longValue(status.get("noops"));
+            Object requestsPerSecond = status.get("requests_per_second");
+            this.requestsPerSecond = requestsPerSecond instanceof Number ? ((Number) requestsPerSecond).floatValue() : -1;
+        }
+    }
+
+    /**
+     * 已处理的文档数
+     */
+    public long getProcessed() {
+        return created + updated + deleted + noops + versionConflicts;
+    }
+
+    /**
+     * 处理进度（0~1）
+     */
+    public double getProgress() {
+        if (completed) {
+            return 1;
+        }
+        return total <= 0 ? 0 : Math.min(1, (double) getProcessed() / total);
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getRunningTime() {
+        return runningTime;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getVersionConflicts() {
+        return versionConflicts;
+    }
+
+    public long getNoops() {
+        return noops;
+    }
+
+    public float getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<String> failures) {
+        this.failures = failures;
+    }
+
+    /**
+     * 任务是否执行失败（返回了error或者response.failures不为空）
+     */
+    public boolean isFailed() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ElasticsearchTaskStatus{" +
+                "completed=" + completed +
+                ", total=" + total +
+                ", created=" + created +
+                ", updated=" + updated +
+                ", deleted=" + deleted +
+                ", batches=" + batches +
+                ", versionConflicts=" + versionConflicts +
+                ", noops=" + noops +
+                ", requestsPerSecond=" + requestsPerSecond +
+                ", runningTime=" + runningTime +
+                ", failures=" + failures +
+                '}';
+    }
+}
@@ -2,58 +2,126 @@ package com.example.elasticsearch.component;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
-import com.alibaba.fastjson.JSONObject;
+import com.example.elasticsearch.configuration.ElasticsearchProperties;
+import org.apache.http.util.EntityUtils;
+import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.admin.cluster.storedscripts.PutStoredScriptRequest;
 import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.core.CountResponse;
+import org.elasticsearch.client.tasks.TaskSubmissionResponse;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.*;
+import org.elasticsearch.index.reindex.AbstractBulkByScrollRequest;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.index.reindex.ReindexRequest;
 import org.elasticsearch.index.reindex.ScrollableHitSource;
 import org.elasticsearch.index.reindex.UpdateByQueryRequest;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.script.mustache.SearchTemplateRequest;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.bucket.SingleBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.sampler.DiversifiedAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.sampler.SamplerAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Cardinality;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Percentile;
+import org.elasticsearch.search.aggregations.metrics.PercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.Percentiles;
+import org.elasticsearch.search.aggregations.metrics.PercentilesAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.ScoreSortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.SuggestBuilder;
+import org.elasticsearch.search.suggest.SuggestBuilders;
+import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
+import org.elasticsearch.search.suggest.term.TermSuggestion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * @author jackie wang
@@ -63,17 +131,86 @@ import java.util.concurrent.TimeUnit;
  * @date 2019/9/30 14:42
  */
 @Component
-public class ElasticsearchTemplate implements ElasticsearchOperations {
+public class ElasticsearchTemplate implements ElasticsearchOperations, InitializingBean, DisposableBean {
     /**
      * es类型默认值
      */
     private final static String ES_TYPE = "_doc";
 
+    /**
+     * 更新文档版本冲突时的重试次数
+     */
+    private final static int RETRY_ON_CONFLICT = 3;
+
+    /**
+     * 近似统计查询的聚合名称
+     */
+    private final static String CARDINALITY = "cardinality";
+    private final static String PERCENTILES = "percentiles";
+    private final static String PERCENTILE_RANKS = "percentile_ranks";
+    private final static String SAMPLE = "sample";
+
+    /**
+     * 搜索建议的名称
+     */
+    private final static String SUGGEST = "suggest";
+
     private Logger logger = LoggerFactory.getLogger(getClass());
 
     @Autowired
     private RestHighLevelClient client;
 
+    @Autowired
+    private BulkProcessor bulkProcessor;
+
+    @Autowired
+    private ElasticsearchProperties properties;
+
+    @Autowired
+    private ElasticsearchAsyncWriter asyncWriter;
+
+    /**
+     * 后台任务完成回调的轮询线程
+     */
+    private final ScheduledExecutorService taskScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "elasticsearch-task-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 正在轮询完成状态的后台任务，关闭时使其完成回调以异常结束，避免轮询线程停止后回调永远不返回
+     */
+    private final Set<ElasticsearchTask> pollingTasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 未指定线程池时执行导出切片的线程，线程数由spring.elasticsearch.scroll.export-threads限定，超出的切片排队执行
+     */
+    private ExecutorService exportExecutor;
+
+    /** 单文档写请求合并器，未开启时为null */
+    @Autowired(required = false)
+    private ElasticsearchWriteBatcher writeBatcher;
+
+    @Autowired
+    private DocumentCodec documentCodec;
+
+    /** 单文档读请求合并器，未开启时为null */
+    @Autowired(required = false)
+    private ElasticsearchReadBatcher readBatcher;
+
+    /** get近端缓存，只缓存配置了的索引 */
+    @Autowired
+    private ElasticsearchNearCache nearCache;
+
+    /** 查询结果缓存，未开启时直接查询 */
+    @Autowired
+    private ElasticsearchSearchCache searchCache;
+
+    /** 搜索建议热点前缀缓存 */
+    @Autowired
+    private ElasticsearchSuggestCache suggestCache;
+
     /**
      * 根据id创建文档
      *
@@ -127,7 +264,7 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
         }
 
         try {
-            indexResponse = client.index(request, RequestOptions.DEFAULT);
+            indexResponse = index(request);
             logger.info("[IndexResponse]:" + indexResponse.getResult());
             result = true;
         } catch (ElasticsearchException e) {
@@ -142,6 +279,9 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            // 请求异常时服务端仍可能已写入（例如客户端超时），同样使缓存失效
+            invalidate(indexName, type, id, indexResponse == null ? -1 : indexResponse.getVersion());
         }
 
         return result;
@@ -185,7 +325,7 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
         }
 
         try {
-            indexResponse = client.index(request, RequestOptions.DEFAULT);
+            indexResponse = index(request);
             logger.info("[IndexResponse]:" + indexResponse.getResult());
             result = true;
         } catch (ElasticsearchException e) {
@@ -200,6 +340,9 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            // 请求异常时服务端仍可能已写入（例如客户端超时），同样使查询结果缓存失效
+            searchCache.invalidate(indexName);
         }
 
         return result;
@@ -248,6 +391,7 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
                     Long version = indexResponse.getVersion();
 
                     logger.info("[IndexResponseAsync] Index:{}, Id:{}, Version:{}", index, id, version);
+                    searchCache.invalidate(index);
 
                     if (indexResponse.getResult() == DocWriteResponse.Result.CREATED) {
                         logger.info("[IndexResponseAsync] Created successful.");
@@ -273,9 +417,11 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
                 @Override
                 public void onFailure(Exception e) {
                     logger.error("[IndexResponseAsync] Elasticsearch document creation exception:", e);
+                    searchCache.invalidate(indexRequest.index());
                 }
             };
-            client.indexAsync(indexRequest, RequestOptions.DEFAULT, actionListener);
+            // 进入有界队列，队列满时按溢出策略阻塞、丢弃最早请求或立即拒绝
+            asyncWriter.submit(indexRequest, actionListener);
         } catch (ElasticsearchException e) {
             if (e.status() == RestStatus.CONFLICT) {
                 throw new RuntimeException("[Elasticsearch]The document already exists.", e);
@@ -286,6 +432,10 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             } else {
                 throw new RuntimeException("[Elasticsearch]The operation failure.", e);
             }
+        } catch (InterruptedException e) {
+            // BLOCK策略下等待队列空间时被中断，恢复中断标记
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -320,6 +470,7 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             throw new Exception(str);
         }
 
+        UpdateResponse updateResponse = null;
         try {
 
             /** 使用map格式数据更新es */
@@ -345,7 +496,7 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
                 updateRequest.doc((XContentBuilder) mapping);
             }
 
-            UpdateResponse updateResponse = client.update(updateRequest, RequestOptions.DEFAULT);
+            updateResponse = client.update(updateRequest, RequestOptions.DEFAULT);
 
             if (updateResponse.getResult() == DocWriteResponse.Result.UPDATED) {
                 logger.info("{}{} 更新内容：{}", "[ElasticsearchUpdate]", updateResponse.getResult().toString(), mapping);
@@ -365,11 +516,123 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            // 请求异常时服务端仍可能已写入（例如客户端超时），同样使缓存失效
+            invalidate(indexName, type, id, updateResponse == null ? -1 : updateResponse.getVersion());
         }
 
         return result;
     }
 
+    /**
+     * 根据id更新文档，文档不存在时以mapping作为新文档创建（docAsUpsert）。
+     * 只发送一次UpdateRequest，不再先查询文档是否存在；并发修改产生版本冲突时由es重试retryOnConflict次。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param mapping 可以是map/String(json)/XContentBuilder类型，根据参数类型动态适配；
+     * @return 文档被创建或更新时返回true，内容相同（noop）时返回false。
+     * @throws Exception
+     */
+    @Override
+    public boolean upsert(String indexName, String type, String id, Object mapping) throws Exception {
+        return upsert(indexName, type, id, mapping, null);
+    }
+
+    /**
+     * 根据id更新文档，文档不存在时以upsertMapping作为新文档创建。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param mapping 文档存在时的部分更新内容，可以是map/String(json)/XContentBuilder类型；
+     * @param upsertMapping 文档不存在时创建的文档内容，为空时使用mapping（docAsUpsert）；
+     * @return 文档被创建或更新时返回true，内容相同（noop）时返回false。
+     * @throws Exception
+     */
+    @Override
+    public boolean upsert(String indexName, String type, String id, Object mapping, Object upsertMapping) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(id, "The id can't be empty.");
+        Assert.notNull(mapping, "The mapping can't be empty.");
+
+        if (StringUtils.isEmpty(type)) {
+            type = ES_TYPE;
+        }
+
+        UpdateRequest updateRequest = new UpdateRequest(indexName, type, id);
+        doc(updateRequest, mapping);
+        if (upsertMapping == null) {
+            updateRequest.docAsUpsert(true);
+        } else {
+            upsertDoc(updateRequest, upsertMapping);
+        }
+        updateRequest.retryOnConflict(RETRY_ON_CONFLICT);
+
+        return update(updateRequest, mapping);
+    }
+
+    /**
+     * 根据id更新文档（乐观并发控制），只发送一次UpdateRequest。
+     * 文档当前的_seq_no和_primary_term与参数不一致时说明文档已被修改，抛出版本冲突异常；文档不存在时抛出异常。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param mapping 可以是map/String(json)/XContentBuilder类型，根据参数类型动态适配；
+     * @param ifSeqNo 读取文档时的_seq_no；
+     * @param ifPrimaryTerm 读取文档时的_primary_term；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public boolean update(String indexName, String type, String id, Object mapping, long ifSeqNo, long ifPrimaryTerm) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(id, "The id can't be empty.");
+        Assert.notNull(mapping, "The mapping can't be empty.");
+
+        if (StringUtils.isEmpty(type)) {
+            type = ES_TYPE;
+        }
+
+        // if_seq_no/if_primary_term不能与retryOnConflict同时使用，版本冲突时直接返回给调用方
+        UpdateRequest updateRequest = new UpdateRequest(indexName, type, id);
+        doc(updateRequest, mapping);
+        updateRequest.setIfSeqNo(ifSeqNo);
+        updateRequest.setIfPrimaryTerm(ifPrimaryTerm);
+
+        return update(updateRequest, mapping);
+    }
+
+    /**
+     * 根据id使用stored script更新文档，只发送一次UpdateRequest，版本冲突时由es重试。
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param scriptId 已注册的stored script id；
+     * @param params 脚本参数；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public boolean update(String indexName, String type, String id, String scriptId, Map<String, Object> params) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(id, "The id can't be empty.");
+        Assert.hasText(scriptId, "The scriptId can't be empty.");
+
+        if (StringUtils.isEmpty(type)) {
+            type = ES_TYPE;
+        }
+
+        UpdateRequest updateRequest = new UpdateRequest(indexName, type, id);
+        updateRequest.script(storedScript(scriptId, params));
+        updateRequest.retryOnConflict(RETRY_ON_CONFLICT);
+
+        return update(updateRequest, params);
+    }
+
     /**
      * 根据id删除文档
      *
@@ -389,9 +652,10 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
 
         String msg = null;
         boolean result = false;
+        DeleteResponse deleteResponse = null;
         try {
             DeleteRequest deleteRequest = new DeleteRequest(indexName, type, id);
-            DeleteResponse deleteResponse = client.delete(deleteRequest, RequestOptions.DEFAULT);
+            deleteResponse = client.delete(deleteRequest, RequestOptions.DEFAULT);
             if (deleteResponse.getResult() == DocWriteResponse.Result.DELETED) {
                 msg = "删除成功。";
                 logger.info(msg);
@@ -408,64 +672,206 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            // 请求异常时服务端仍可能已写入（例如客户端超时），同样使缓存失效
+            invalidate(indexName, type, id, deleteResponse == null ? -1 : deleteResponse.getVersion());
         }
 
         return result;
     }
 
+    /**
+     * 批量创建文档：文档交给BulkProcessor，按文档数量、请求大小、时间间隔合并为_bulk请求异步提交。
+     * id不为空时文档已存在会提交失败，失败的文档记录在日志中。
+     *
+     * @param documents 文档列表；例如：new BulkDocument("posts", "1", jsonMap)
+     * @return 已加入批量处理器的文档数。
+     * @throws Exception
+     */
+    @Override
+    public int createAll(Collection<BulkDocument> documents) throws Exception {
+        Assert.notEmpty(documents, "The documents can't be empty.");
+
+        int count = 0;
+        for (BulkDocument document : documents) {
+            Assert.hasText(document.getIndexName(), "The indexName can't be empty.");
+            Assert.notNull(document.getMapping(), "The mapping can't be empty.");
+
+            String type = StringUtils.isEmpty(document.getType()) ? ES_TYPE : document.getType();
+            IndexRequest request = new IndexRequest(document.getIndexName(), type);
+            if (StringUtils.hasText(document.getId())) {
+                request.id(document.getId()).opType(DocWriteRequest.OpType.CREATE);
+            }
+            source(request, document.getMapping());
+
+            if (StringUtils.hasText(document.getId())) {
+                invalidate(document.getIndexName(), type, document.getId(), -1);
+            }
+            bulkProcessor.add(request);
+            count++;
+        }
+        logger.info("[BulkProcessor]批量创建文档数:{}", count);
+
+        return count;
+    }
+
+    /**
+     * 批量更新文档（部分更新），提交方式同createAll。
+     *
+     * @param documents 文档列表，id和mapping不能为空；
+     * @return 已加入批量处理器的文档数。
+     * @throws Exception
+     */
+    @Override
+    public int updateAll(Collection<BulkDocument> documents) throws Exception {
+        Assert.notEmpty(documents, "The documents can't be empty.");
+
+        int count = 0;
+        for (BulkDocument document : documents) {
+            Assert.hasText(document.getIndexName(), "The indexName can't be empty.");
+            Assert.hasText(document.getId(), "The id can't be empty.");
+            Assert.notNull(document.getMapping(), "The mapping can't be empty.");
+
+            String type = StringUtils.isEmpty(document.getType()) ? ES_TYPE : document.getType();
+            UpdateRequest request = new UpdateRequest(document.getIndexName(), type, document.getId());
+            doc(request, document.getMapping());
+
+            invalidate(document.getIndexName(), type, document.getId(), -1);
+            bulkProcessor.add(request);
+            count++;
+        }
+        logger.info("[BulkProcessor]批量更新文档数:{}", count);
+
+        return count;
+    }
+
+    /**
+     * 批量删除文档，提交方式同createAll。
+     *
+     * @param documents 文档列表，id不能为空，mapping可以为空；
+     * @return 已加入批量处理器的文档数。
+     * @throws Exception
+     */
+    @Override
+    public int deleteAll(Collection<BulkDocument> documents) throws Exception {
+        Assert.notEmpty(documents, "The documents can't be empty.");
+
+        int count = 0;
+        for (BulkDocument document : documents) {
+            Assert.hasText(document.getIndexName(), "The indexName can't be empty.");
+            Assert.hasText(document.getId(), "The id can't be empty.");
+
+            String type = StringUtils.isEmpty(document.getType()) ? ES_TYPE : document.getType();
+            invalidate(document.getIndexName(), type, document.getId(), -1);
+            bulkProcessor.add(new DeleteRequest(document.getIndexName(), type, document.getId()));
+            count++;
+        }
+        logger.info("[BulkProcessor]批量删除文档数:{}", count);
+
+        return count;
+    }
+
+    /**
+     * 立即提交批量处理器中尚未提交的文档。
+     */
+    @Override
+    public void flushBulk() {
+        bulkProcessor.flush();
+    }
+
+    /**
+     * 启动时创建导出线程池，并注册spring.elasticsearch.scripts中配置的stored script。
+     * 注册失败只记录日志，不影响应用启动。
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        int exportThreads = properties.getScroll().getExportThreads();
+        Assert.isTrue(exportThreads > 0, "The scroll.exportThreads must be greater than 0.");
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(exportThreads, exportThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "elasticsearch-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 没有导出任务时不保留线程
+        executor.allowCoreThreadTimeOut(true);
+        exportExecutor = executor;
+
+        for (Map.Entry<String, String> entry : properties.getScripts().entrySet()) {
+            try {
+                putScript(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                logger.error("[ElasticsearchScript]注册脚本{}失败:", entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 应用关闭时提交剩余文档，并等待未完成的批次执行结束。
+     */
+    @Override
+    public void destroy() throws Exception {
+        taskScheduler.shutdownNow();
+        for (ElasticsearchTask task : pollingTasks) {
+            task.abandon();
+        }
+        if (exportExecutor != null) {
+            exportExecutor.shutdownNow();
+        }
+        boolean terminated = bulkProcessor.awaitClose(properties.getBulk().getAwaitClose(), TimeUnit.SECONDS);
+        if (!terminated) {
+            logger.warn("[BulkProcessor]等待批量提交超时，部分文档可能未写入。");
+        }
+    }
+
     /**
      * 根据查询更新索引中的文档：最简单的用法是更新索引中的每个文档，而无需更改源。
      * 注意：批量执行比较耗时。
      *
      * @param indexName 索引；
-     * @param termQueryBuilder 例如：new TermQueryBuilder("user","kimchy" )
+     * @param queryBuilder 查询条件，任意QueryBuilder；例如：new TermQueryBuilder("user","kimchy" )
      * @param script           脚本：例如"if (ctx._source.user == 'kimchy') {ctx._source.likes++;}"
      * @return
      * @throws Exception
      */
     @Override
-    public Long updateByQuery(String indexName, TermQueryBuilder termQueryBuilder, String script) throws Exception {
+    public Long updateByQuery(String indexName, QueryBuilder queryBuilder, String script) throws Exception {
         Assert.hasText(indexName, "The indexName can't be empty.");
         Assert.hasText(script, "The script can't be empty.");
-        Assert.notNull(termQueryBuilder, "The termQueryBuilder can't be empty.");
+        Assert.notNull(queryBuilder, "The queryBuilder can't be empty.");
+
+        return updateByQuery(indexName, queryBuilder,
+                new Script(ScriptType.INLINE, "painless", script, Collections.emptyMap()));
+    }
+
+    /**
+     * 根据查询使用stored script更新索引中的文档：脚本只在注册时编译一次，变化的值通过params传入，
+     * 避免每个值拼接出不同的inline脚本而反复编译（script.max_compilations_rate）。
+     *
+     * @param indexName 索引；
+     * @param queryBuilder 查询条件，任意QueryBuilder；例如：new TermQueryBuilder("user","kimchy" )
+     * @param scriptId 已注册的stored script id，参考putScript和spring.elasticsearch.scripts；
+     * @param params 脚本参数，脚本中通过params.xxx引用；例如："ctx._source.likes += params.count"
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public Long updateByQuery(String indexName, QueryBuilder queryBuilder, String scriptId, Map<String, Object> params) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(scriptId, "The scriptId can't be empty.");
+        Assert.notNull(queryBuilder, "The queryBuilder can't be empty.");
+
+        return updateByQuery(indexName, queryBuilder, storedScript(scriptId, params));
+    }
 
+    /**
+     * 根据查询使用脚本更新索引中的文档
+     */
+    private Long updateByQuery(String indexName, QueryBuilder queryBuilder, Script script) {
         long updatedDocs = 0;
 
         try {
-            UpdateByQueryRequest request = new UpdateByQueryRequest(indexName);
-            // 设置proceed版本冲突
-            request.setConflicts("proceed");
-            // 通过添加条件查询限制文档，仅复制将属性字段user设置为“kimchy”的文档
-//            request.setQuery(new TermQueryBuilder("user","kimchy" ));
-            request.setQuery(termQueryBuilder);
-            // 只复制10个文档
-            request.setSize(100);
-            // 使用100个文档批次大小
-            request.setBatchSize(1000);
-            // 按查询更新还可以通过指定管道来使用提取功能
-//            request.setPipeline("my_pipeline");
-
-            /**支持script修改文档：setScript使用户为kimchy的所有文档上的likes字段递增。
-             * 请确保执行脚本中的属性存在，否则报错,没有属性可以进行赋值操作添加属性；例如更新message属性：
-             * "if (ctx._source.user == 'kimchy') {ctx._source.message='test';}",
-             */
-            request.setScript(
-                    new Script(
-                            ScriptType.INLINE, "painless",
-//                            "if (ctx._source.user == 'kimchy') {ctx._source.likes=0;}",
-//                            "if (ctx._source.user == 'kimchy') {ctx._source.likes++;}",
-                            script,
-                            Collections.emptyMap()));
-            // 设置使用的切片数
-            request.setSlices(2);
-            // 使用scroll参数来控制它保持“搜索上下文”活动的时间，即设置滚动时间
-            request.setScroll(TimeValue.timeValueMinutes(10));
-            // 设置路由：如果提供路由，则路由将复制到滚动查询，从而将进程限制为与该路由值匹配的碎片。
-//            request.setRouting("=cat");
-            //  等待查询请求更新执行作为TimeValue的超时时间
-            request.setTimeout(TimeValue.timeValueMinutes(2));
-            // 通过调用查询更新后刷新索引
-            request.setIndicesOptions(IndicesOptions.LENIENT_EXPAND_OPEN);
+            UpdateByQueryRequest request = updateByQueryRequest(indexName, queryBuilder, script);
 
             // 响应信息
             BulkByScrollResponse bulkResponse = client.updateByQuery(request, RequestOptions.DEFAULT);
@@ -510,52 +916,76 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            // 请求异常时任务仍可能在服务端继续执行（例如客户端超时），同样使缓存失效
+            invalidateAll(indexName);
         }
 
         return updatedDocs;
     }
 
 
+    /**
+     * 注册（或覆盖）painless stored script，es只在注册时编译一次。
+     *
+     * @param scriptId 脚本id；
+     * @param source 脚本内容，例如："ctx._source.likes += params.count"
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public boolean putScript(String scriptId, String source) throws Exception {
+        Assert.hasText(scriptId, "The scriptId can't be empty.");
+        Assert.hasText(source, "The source can't be empty.");
+
+        return putStoredScript(scriptId, "painless", source);
+    }
+
+    private boolean putStoredScript(String scriptId, String lang, String source) {
+        try {
+            XContentBuilder content = XContentFactory.jsonBuilder();
+            content.startObject()
+                    .startObject("script")
+                    .field("lang", lang)
+                    .field("source", source)
+                    .endObject()
+                    .endObject();
+
+            PutStoredScriptRequest request = new PutStoredScriptRequest();
+            request.id(scriptId);
+            request.content(BytesReference.bytes(content), XContentType.JSON);
+
+            AcknowledgedResponse response = client.putScript(request, RequestOptions.DEFAULT);
+            logger.info("[ElasticsearchScript]注册脚本:{}，语言:{}，结果:{}", scriptId, lang, response.isAcknowledged());
+            return response.isAcknowledged();
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.BAD_REQUEST) {
+                throw new RuntimeException("[Elasticsearch]The script is invalid.", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The operation failure.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * 根据查询条件删除索引中的文档。
      *
      * @param indexName 索引；
-     * @param termQueryBuilder 例如：new TermQueryBuilder("user","kimchy" )
+     * @param queryBuilder 查询条件，任意QueryBuilder；例如：new TermQueryBuilder("user","kimchy" )
      * @return
      * @throws Exception
      */
     @Override
-    public Long deleteByQuery(String indexName, TermQueryBuilder termQueryBuilder) throws Exception {
+    public Long deleteByQuery(String indexName, QueryBuilder queryBuilder) throws Exception {
         Assert.hasText(indexName, "The indexName can't be empty.");
-        Assert.notNull(termQueryBuilder, "The termQueryBuilder can't be empty.");
+        Assert.notNull(queryBuilder, "The queryBuilder can't be empty.");
 
         long deletedDocs = 0;
 
         try {
-            DeleteByQueryRequest request = new DeleteByQueryRequest(indexName);
-            // 设置proceed版本冲突
-            request.setConflicts("proceed");
-            // 通过添加条件查询限制文档，仅复制将属性字段user设置为“kimchy”的文档
-//            request.setQuery(new TermQueryBuilder("user","kimchy" ));
-            request.setQuery(termQueryBuilder);
-            // 只复制10个文档
-            request.setSize(100);
-            // 使用100个文档批次大小
-            request.setBatchSize(1000);
-            // 按查询更新还可以通过指定管道来使用提取功能
-//            request.setPipeline("my_pipeline");
-            // 设置使用的切片数
-            request.setSlices(2);
-            // 使用scroll参数来控制它保持“搜索上下文”活动的时间，即设置滚动时间
-            request.setScroll(TimeValue.timeValueMinutes(10));
-            // 设置路由：如果提供路由，则路由将复制到滚动查询，从而将进程限制为与该路由值匹配的碎片。
-//            request.setRouting("=cat");
-            //  等待查询请求更新执行作为TimeValue的超时时间
-            request.setTimeout(TimeValue.timeValueMinutes(2));
-            // 通过查询调用delete后刷新索引
-            request.setRefresh(true);
-            // 设置索引选项
-            request.setIndicesOptions(IndicesOptions.LENIENT_EXPAND_OPEN);
+            DeleteByQueryRequest request = deleteByQueryRequest(indexName, queryBuilder);
 
             // 响应信息
             BulkByScrollResponse bulkResponse = client.deleteByQuery(request, RequestOptions.DEFAULT);
@@ -598,72 +1028,579 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            // 请求异常时任务仍可能在服务端继续执行（例如客户端超时），同样使缓存失效
+            invalidateAll(indexName);
         }
 
         return deletedDocs;
     }
 
     /**
-     * 根据id查询文档
+     * 以后台任务方式根据查询更新索引中的文档（wait_for_completion=false），立即返回任务句柄，
+     * 调用线程不再阻塞到任务结束，可以通过任务句柄查询进度、注册完成回调、取消或调整限速。
      *
      * @param indexName 索引；
-     * @param type 文档；
-     * @param id id；
-     * @return
+     * @param queryBuilder 查询条件；
+     * @param script 脚本：例如"if (ctx._source.user == 'kimchy') {ctx._source.likes++;}"
+     * @return 任务句柄。
+     * @throws Exception
      */
     @Override
-    public Map get(String indexName, String type, String id) throws Exception {
+    public ElasticsearchTask submitUpdateByQuery(String indexName, QueryBuilder queryBuilder, String script) throws Exception {
         Assert.hasText(indexName, "The indexName can't be empty.");
-        Assert.hasText(id, "The id can't be empty.");
+        Assert.hasText(script, "The script can't be empty.");
+        Assert.notNull(queryBuilder, "The queryBuilder can't be empty.");
 
-        if (StringUtils.isEmpty(type)) {
-            type = ES_TYPE;
-        }
+        UpdateByQueryRequest request = updateByQueryRequest(indexName, queryBuilder,
+                new Script(ScriptType.INLINE, "painless", script, Collections.emptyMap()));
+        return invalidateOnCompletion(indexName,
+                submitTask("/" + indexName + "/_update_by_query", request, request, ElasticsearchTask.Action.UPDATE_BY_QUERY));
+    }
 
-        Map<String, Object> sourceAsMap = null;
-        String msg = null;
+    /**
+     * 以后台任务方式根据查询使用stored script更新索引中的文档。
+     *
+     * @param indexName 索引；
+     * @param queryBuilder 查询条件；
+     * @param scriptId 已注册的stored script id；
+     * @param params 脚本参数；
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    @Override
+    public ElasticsearchTask submitUpdateByQuery(String indexName, QueryBuilder queryBuilder, String scriptId, Map<String, Object> params) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(scriptId, "The scriptId can't be empty.");
+        Assert.notNull(queryBuilder, "The queryBuilder can't be empty.");
+
+        UpdateByQueryRequest request = updateByQueryRequest(indexName, queryBuilder, storedScript(scriptId, params));
+        return invalidateOnCompletion(indexName,
+                submitTask("/" + indexName + "/_update_by_query", request, request, ElasticsearchTask.Action.UPDATE_BY_QUERY));
+    }
+
+    /**
+     * 以后台任务方式根据查询条件删除索引中的文档。
+     *
+     * @param indexName 索引；
+     * @param queryBuilder 查询条件；
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    @Override
+    public ElasticsearchTask submitDeleteByQuery(String indexName, QueryBuilder queryBuilder) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.notNull(queryBuilder, "The queryBuilder can't be empty.");
+
+        DeleteByQueryRequest request = deleteByQueryRequest(indexName, queryBuilder);
+        return invalidateOnCompletion(indexName,
+                submitTask("/" + indexName + "/_delete_by_query", request, request, ElasticsearchTask.Action.DELETE_BY_QUERY));
+    }
+
+    /**
+     * 重建索引：将源索引中的文档复制到目标索引，可以指定查询条件过滤文档、使用脚本转换文档，
+     * 按spring.elasticsearch.byQuery配置切片并行执行。
+     * 注意：调用线程阻塞到任务结束，大索引请使用submitReindex。
+     *
+     * @param sourceIndex 源索引；
+     * @param destIndex 目标索引；
+     * @param queryBuilder 查询条件，为空时复制全部文档；
+     * @param script 转换脚本，可以为空；例如："ctx._source.remove('message')"
+     * @return 已创建和更新的文档数。
+     * @throws Exception
+     */
+    @Override
+    public Long reindex(String sourceIndex, String destIndex, QueryBuilder queryBuilder, String script) throws Exception {
+        Assert.hasText(sourceIndex, "The sourceIndex can't be empty.");
+        Assert.hasText(destIndex, "The destIndex can't be empty.");
+
+        long reindexedDocs = 0;
 
         try {
-            GetRequest getRequest = new GetRequest(indexName, type, id);
-            GetResponse getResponse = client.get(getRequest, RequestOptions.DEFAULT);
-            if (getResponse.isExists()) {
-//                msg = getResponse.getSourceAsString();
-                sourceAsMap = getResponse.getSourceAsMap();
+            ReindexRequest request = reindexRequest(sourceIndex, destIndex, queryBuilder, script);
+            BulkByScrollResponse bulkResponse = client.reindex(request, RequestOptions.DEFAULT);
+            reindexedDocs = bulkResponse.getCreated() + bulkResponse.getUpdated();
+
+            for (BulkItemResponse.Failure failure : bulkResponse.getBulkFailures()) {
+                logger.error("[批量索引操作期间的失败文档]{} ", failure.getMessage(), failure);
             }
-            logger.info("[ElasticsearchGet]根据id:{}查询文档。", id);
-            logger.info("[ElasticsearchGet]{}", sourceAsMap);
+            logger.info("[reindex]{} -> {}，已创建的文档数:{}，已更新的文档数:{}，耗时:{}", sourceIndex, destIndex,
+                    bulkResponse.getCreated(), bulkResponse.getUpdated(), bulkResponse.getTook());
         } catch (ElasticsearchException e) {
             if (e.status() == RestStatus.NOT_FOUND) {
                 throw new RuntimeException("[Elasticsearch]Index does not exist", e);
             } else {
-                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+                throw new RuntimeException("[Elasticsearch]The operation failure.", e);
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            // 请求异常时任务仍可能在服务端继续执行（例如客户端超时），同样使缓存失效
+            invalidateAll(destIndex);
         }
 
-        return sourceAsMap;
+        return reindexedDocs;
     }
 
     /**
-     * 根据id判断文档是否存在
+     * 以后台任务方式重建索引，立即返回任务句柄，可以查询进度、注册完成回调、取消或调整限速。
      *
-     * @param indexName 索引；
-     * @param type 文档；
-     * @param id id；
-     * @return
+     * @param sourceIndex 源索引；
+     * @param destIndex 目标索引；
+     * @param queryBuilder 查询条件，为空时复制全部文档；
+     * @param script 转换脚本，可以为空；
+     * @return 任务句柄。
+     * @throws Exception
      */
     @Override
-    public boolean exist(String indexName, String type, String id) throws Exception {
-        Assert.hasText(indexName, "The indexName can't be empty.");
-        Assert.hasText(id, "The id can't be empty.");
-
-        if (StringUtils.isEmpty(type)) {
-            type = ES_TYPE;
-        }
+    public ElasticsearchTask submitReindex(String sourceIndex, String destIndex, QueryBuilder queryBuilder, String script) throws Exception {
+        return submitReindex(sourceIndex, destIndex, queryBuilder, script, 0);
+    }
 
-        Boolean exist = false;
-        try {
+    /**
+     * 以后台任务方式重建索引，并在提交时设置限速。
+     *
+     * @param sourceIndex 源索引；
+     * @param destIndex 目标索引；
+     * @param queryBuilder 查询条件，为空时复制全部文档；
+     * @param script 转换脚本，可以为空；
+     * @param requestsPerSecond 每秒请求数，小于等于0表示不限速；
+     * @return 任务句柄。
+     * @throws Exception
+     */
+    @Override
+    public ElasticsearchTask submitReindex(String sourceIndex, String destIndex, QueryBuilder queryBuilder, String script,
+                                          float requestsPerSecond) throws Exception {
+        Assert.hasText(sourceIndex, "The sourceIndex can't be empty.");
+        Assert.hasText(destIndex, "The destIndex can't be empty.");
+
+        try {
+            ReindexRequest request = reindexRequest(sourceIndex, destIndex, queryBuilder, script);
+            if (requestsPerSecond > 0) {
+                request.setRequestsPerSecond(requestsPerSecond);
+            }
+            TaskSubmissionResponse response = client.submitReindexTask(request, RequestOptions.DEFAULT);
+            logger.info("[ElasticsearchTask]已提交任务:reindex {} -> {}，任务id:{}", sourceIndex, destIndex, response.getTask());
+
+            return invalidateOnCompletion(destIndex,
+                    new ElasticsearchTask(client, taskScheduler, response.getTask(), ElasticsearchTask.Action.REINDEX, pollingTasks));
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The operation failure.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 构建重建索引的请求
+     */
+    private ReindexRequest reindexRequest(String sourceIndex, String destIndex, QueryBuilder queryBuilder, String script) {
+        ReindexRequest request = new ReindexRequest();
+        request.setSourceIndices(sourceIndex);
+        request.setDestIndex(destIndex);
+        // 设置proceed版本冲突
+        request.setConflicts("proceed");
+        if (queryBuilder != null) {
+            request.setSourceQuery(queryBuilder);
+        }
+        if (StringUtils.hasText(script)) {
+            request.setScript(new Script(ScriptType.INLINE, "painless", script, Collections.emptyMap()));
+        }
+        // 按源索引设置切片数、批次大小及最多处理的文档数
+        byQuery(request, sourceIndex);
+        // 使用scroll参数来控制它保持“搜索上下文”活动的时间，即设置滚动时间
+        request.setScroll(TimeValue.timeValueMinutes(10));
+        //  等待查询请求更新执行作为TimeValue的超时时间
+        request.setTimeout(TimeValue.timeValueMinutes(2));
+        // 完成后刷新目标索引
+        request.setRefresh(true);
+        return request;
+    }
+
+    /**
+     * 构建根据查询更新文档的请求
+     */
+    private UpdateByQueryRequest updateByQueryRequest(String indexName, QueryBuilder queryBuilder, Script script) {
+        UpdateByQueryRequest request = new UpdateByQueryRequest(indexName);
+        // 设置proceed版本冲突
+        request.setConflicts("proceed");
+        request.setQuery(queryBuilder);
+        // 设置切片数、批次大小及最多处理的文档数
+        byQuery(request, indexName);
+        // 请确保脚本中的属性存在，否则报错，没有的属性可以通过赋值添加
+        request.setScript(script);
+        // 使用scroll参数来控制它保持“搜索上下文”活动的时间，即设置滚动时间
+        request.setScroll(TimeValue.timeValueMinutes(10));
+        //  等待查询请求更新执行作为TimeValue的超时时间
+        request.setTimeout(TimeValue.timeValueMinutes(2));
+        // 设置索引选项
+        request.setIndicesOptions(IndicesOptions.LENIENT_EXPAND_OPEN);
+        return request;
+    }
+
+    /**
+     * 构建根据查询删除文档的请求
+     */
+    private DeleteByQueryRequest deleteByQueryRequest(String indexName, QueryBuilder queryBuilder) {
+        DeleteByQueryRequest request = new DeleteByQueryRequest(indexName);
+        // 设置proceed版本冲突
+        request.setConflicts("proceed");
+        request.setQuery(queryBuilder);
+        // 设置切片数、批次大小及最多处理的文档数
+        byQuery(request, indexName);
+        // 使用scroll参数来控制它保持“搜索上下文”活动的时间，即设置滚动时间
+        request.setScroll(TimeValue.timeValueMinutes(10));
+        //  等待查询请求更新执行作为TimeValue的超时时间
+        request.setTimeout(TimeValue.timeValueMinutes(2));
+        // 通过查询调用delete后刷新索引
+        request.setRefresh(true);
+        // 设置索引选项
+        request.setIndicesOptions(IndicesOptions.LENIENT_EXPAND_OPEN);
+        return request;
+    }
+
+    /**
+     * 按spring.elasticsearch.byQuery配置设置切片数、批次大小及最多处理的文档数。
+     * 默认slices=auto，由es按索引主分片数切片，各分片并行处理；未配置maxDocs时处理全部匹配的文档。
+     */
+    private void byQuery(AbstractBulkByScrollRequest<?> request, String indexName) {
+        ElasticsearchProperties.ByQuery byQuery = properties.getByQuery().forIndex(indexName);
+
+        if (!StringUtils.hasText(byQuery.getSlices())
+                || AbstractBulkByScrollRequest.AUTO_SLICES_VALUE.equalsIgnoreCase(byQuery.getSlices())) {
+            request.setSlices(AbstractBulkByScrollRequest.AUTO_SLICES);
+        } else {
+            request.setSlices(Integer.parseInt(byQuery.getSlices().trim()));
+        }
+        if (byQuery.getBatchSize() != null) {
+            request.getSearchRequest().source().size(byQuery.getBatchSize());
+        }
+        if (byQuery.getMaxDocs() != null) {
+            request.setSize(byQuery.getMaxDocs());
+        }
+    }
+
+    /**
+     * 后台任务执行期间及完成时使索引的缓存全部失效，未开启缓存时不轮询任务状态
+     */
+    private ElasticsearchTask invalidateOnCompletion(String indexName, ElasticsearchTask task) {
+        if (nearCache.isEnabled(indexName) || searchCache.isEnabled()) {
+            invalidateAll(indexName);
+            task.completion().whenComplete((status, e) -> invalidateAll(indexName));
+        }
+        return task;
+    }
+
+    /**
+     * 文档被写入后使近端缓存中的文档及该索引的查询结果缓存失效
+     *
+     * @param version 写入后的版本，未知时传-1；
+     */
+    private void invalidate(String indexName, String type, String id, long version) {
+        nearCache.invalidate(indexName, type, id, version);
+        searchCache.invalidate(indexName);
+    }
+
+    /**
+     * 无法确定被写入的文档时，使索引的全部缓存失效
+     */
+    private void invalidateAll(String indexName) {
+        nearCache.invalidateAll(indexName);
+        searchCache.invalidate(indexName);
+    }
+
+    /**
+     * 以wait_for_completion=false提交by-query任务。
+     * 7.1版本的RestHighLevelClient没有提供update_by_query/delete_by_query的任务提交接口，这里使用低级客户端提交，
+     * 请求参数与RestHighLevelClient的转换规则一致。
+     */
+    private ElasticsearchTask submitTask(String endpoint, AbstractBulkByScrollRequest<?> byScrollRequest,
+                                         ToXContentObject body, ElasticsearchTask.Action action) {
+        try {
+            Request request = new Request("POST", endpoint);
+            request.addParameter("wait_for_completion", "false");
+            if (!byScrollRequest.isAbortOnVersionConflict()) {
+                request.addParameter("conflicts", "proceed");
+            }
+            if (byScrollRequest.getSlices() == AbstractBulkByScrollRequest.AUTO_SLICES) {
+                request.addParameter("slices", AbstractBulkByScrollRequest.AUTO_SLICES_VALUE);
+            } else {
+                request.addParameter("slices", String.valueOf(byScrollRequest.getSlices()));
+            }
+            if (byScrollRequest.getSize() != -1) {
+                request.addParameter("size", String.valueOf(byScrollRequest.getSize()));
+            }
+            request.addParameter("scroll_size", String.valueOf(byScrollRequest.getSearchRequest().source().size()));
+            if (byScrollRequest.getSearchRequest().scroll() != null) {
+                request.addParameter("scroll", byScrollRequest.getSearchRequest().scroll().keepAlive().getStringRep());
+            }
+            request.addParameter("timeout", byScrollRequest.getTimeout().getStringRep());
+            if (byScrollRequest.isRefresh()) {
+                request.addParameter("refresh", "true");
+            }
+            if (byScrollRequest.getRequestsPerSecond() != Float.POSITIVE_INFINITY) {
+                request.addParameter("requests_per_second", String.valueOf(byScrollRequest.getRequestsPerSecond()));
+            }
+            IndicesOptions indicesOptions = byScrollRequest.getSearchRequest().indicesOptions();
+            request.addParameter("ignore_unavailable", String.valueOf(indicesOptions.ignoreUnavailable()));
+            request.addParameter("allow_no_indices", String.valueOf(indicesOptions.allowNoIndices()));
+            // 未设置通配符展开时不传参数，使用es的默认值
+            if (indicesOptions.expandWildcardsOpen() && indicesOptions.expandWildcardsClosed()) {
+                request.addParameter("expand_wildcards", "open,closed");
+            } else if (indicesOptions.expandWildcardsOpen()) {
+                request.addParameter("expand_wildcards", "open");
+            } else if (indicesOptions.expandWildcardsClosed()) {
+                request.addParameter("expand_wildcards", "closed");
+            }
+
+            XContentBuilder builder = XContentFactory.jsonBuilder();
+            body.toXContent(builder, ToXContent.EMPTY_PARAMS);
+            request.setJsonEntity(Strings.toString(builder));
+
+            Response response = client.getLowLevelClient().performRequest(request);
+            String taskId = JSON.parseObject(EntityUtils.toString(response.getEntity())).getString("task");
+            logger.info("[ElasticsearchTask]已提交任务:{}，任务id:{}", endpoint, taskId);
+
+            return new ElasticsearchTask(client, taskScheduler, taskId, action, pollingTasks);
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == RestStatus.NOT_FOUND.getStatus()) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else if (e.getResponse().getStatusLine().getStatusCode() == RestStatus.BAD_REQUEST.getStatus()) {
+                throw new RuntimeException("[Elasticsearch]The requested parameter is invalid.", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The operation failure.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 根据id查询文档
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @return
+     */
+    @Override
+    public Map get(String indexName, String type, String id) throws Exception {
+        return get(indexName, type, id, (SourceFilter) null);
+    }
+
+    /**
+     * 根据id查询文档，只返回指定的字段
+     * 控制台查询：
+     * GET posts/_doc/1?_source_includes=user,postDate
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param sourceFilter 返回字段，为空时返回全部字段；不支持docValueFields，指定时抛出IllegalArgumentException；
+     * @return
+     */
+    @Override
+    public Map<String, Object> get(String indexName, String type, String id, SourceFilter sourceFilter) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(id, "The id can't be empty.");
+        assertNoDocValueFields(sourceFilter);
+
+        if (StringUtils.isEmpty(type)) {
+            type = ES_TYPE;
+        }
+
+        Map<String, Object> sourceAsMap = null;
+        String msg = null;
+
+        try {
+            GetRequest getRequest = new GetRequest(indexName, type, id);
+            if (sourceFilter != null) {
+                getRequest.fetchSourceContext(sourceFilter.toFetchSourceContext());
+            }
+            GetResponse getResponse = get(getRequest);
+            if (getResponse.isExists()) {
+//                msg = getResponse.getSourceAsString();
+                sourceAsMap = getResponse.getSourceAsMap();
+            }
+            logger.info("[ElasticsearchGet]根据id:{}查询文档。", id);
+            logger.info("[ElasticsearchGet]{}", sourceAsMap);
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return sourceAsMap;
+    }
+
+    /**
+     * 根据id查询文档，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param clazz 文档类型；
+     * @return 文档不存在时返回null。
+     */
+    @Override
+    public <T> T get(String indexName, String type, String id, Class<T> clazz) throws Exception {
+        return get(indexName, type, id, null, clazz);
+    }
+
+    /**
+     * 根据id查询文档，只返回指定的字段，并直接解码为指定类型
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @param sourceFilter 返回字段，为空时返回全部字段；不支持docValueFields，指定时抛出IllegalArgumentException；
+     * @param clazz 文档类型；
+     * @return 文档不存在时返回null。
+     */
+    @Override
+    public <T> T get(String indexName, String type, String id, SourceFilter sourceFilter, Class<T> clazz) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(id, "The id can't be empty.");
+        Assert.notNull(clazz, "The clazz can't be null.");
+        assertNoDocValueFields(sourceFilter);
+
+        if (StringUtils.isEmpty(type)) {
+            type = ES_TYPE;
+        }
+
+        try {
+            GetRequest getRequest = new GetRequest(indexName, type, id);
+            if (sourceFilter != null) {
+                getRequest.fetchSourceContext(sourceFilter.toFetchSourceContext());
+            }
+            GetResponse getResponse = get(getRequest);
+            if (!getResponse.isExists()) {
+                return null;
+            }
+            return documentCodec.decode(getResponse.getId(), getResponse.getSourceAsBytesRef(), clazz);
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * get/_mget没有doc values，指定docValueFields时直接拒绝，避免调用方以为字段已返回
+     */
+    private void assertNoDocValueFields(SourceFilter sourceFilter) {
+        Assert.isTrue(sourceFilter == null || sourceFilter.getDocValueFields().length == 0,
+                "The docValueFields is not supported by get/multiGet.");
+    }
+
+    /**
+     * 根据id批量查询文档（_mget），一次请求返回全部文档。
+     * 控制台查询：
+     * GET posts/_mget
+     * {"docs":[{"_id":"1"},{"_id":"2"}]}
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param ids id集合；
+     * @return key为id，value为文档内容，按ids的顺序排列，不存在的文档不返回。
+     * @throws Exception
+     */
+    @Override
+    public Map<String, Map<String, Object>> multiGet(String indexName, String type, Collection<String> ids) throws Exception {
+        return multiGet(indexName, type, ids, null);
+    }
+
+    /**
+     * 根据id批量查询文档（_mget），只返回指定的字段
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param ids id集合；
+     * @param sourceFilter 返回字段，为空时返回全部字段；不支持docValueFields，指定时抛出IllegalArgumentException；
+     * @return key为id，value为文档内容，按ids的顺序排列，不存在的文档不返回。
+     * @throws Exception
+     */
+    @Override
+    public Map<String, Map<String, Object>> multiGet(String indexName, String type, Collection<String> ids,
+                                                     SourceFilter sourceFilter) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.notNull(ids, "The ids can't be null.");
+        assertNoDocValueFields(sourceFilter);
+
+        if (StringUtils.isEmpty(type)) {
+            type = ES_TYPE;
+        }
+
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return documents;
+        }
+
+        try {
+            MultiGetRequest multiGetRequest = new MultiGetRequest();
+            for (String id : ids) {
+                MultiGetRequest.Item item = new MultiGetRequest.Item(indexName, type, id);
+                if (sourceFilter != null) {
+                    item.fetchSourceContext(sourceFilter.toFetchSourceContext());
+                }
+                multiGetRequest.add(item);
+            }
+            MultiGetResponse multiGetResponse = client.mget(multiGetRequest, RequestOptions.DEFAULT);
+            for (MultiGetItemResponse item : multiGetResponse.getResponses()) {
+                if (item.isFailed()) {
+                    throw ElasticsearchReadBatcher.failure(item.getFailure());
+                }
+                GetResponse getResponse = item.getResponse();
+                if (getResponse.isExists()) {
+                    Map<String, Object> sourceAsMap = getResponse.getSourceAsMap();
+                    documents.put(getResponse.getId(), sourceAsMap == null ? new HashMap<>() : sourceAsMap);
+                }
+            }
+            logger.info("[ElasticsearchMultiGet]根据id查询文档数:{}，存在的文档数:{}", ids.size(), documents.size());
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return documents;
+    }
+
+    /**
+     * 根据id判断文档是否存在
+     *
+     * @param indexName 索引；
+     * @param type 文档；
+     * @param id id；
+     * @return
+     */
+    @Override
+    public boolean exist(String indexName, String type, String id) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(id, "The id can't be empty.");
+
+        if (StringUtils.isEmpty(type)) {
+            type = ES_TYPE;
+        }
+
+        Boolean exist = false;
+        try {
             GetRequest getRequest = new GetRequest(indexName, type, id);
             getRequest.fetchSourceContext(new FetchSourceContext(false));
             getRequest.storedFields("_none_");
@@ -854,7 +1791,7 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             searchSourceBuilder.size(0);
             searchRequest.source(searchSourceBuilder);
 
-            SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+            SearchResponse searchResponse = search(searchRequest);
 
             /** 方法1 */
 //            Aggregations aggregations = searchResponse.getAggregations();
@@ -864,20 +1801,17 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
 //                logger.info("key:"+bucket.getKeyAsString()+", docCount:"+bucket.getDocCount());
 //            }
 
-            /** 方法2 */
-            JSONObject jsonObject = JSON.parseObject(searchResponse.toString());
-//            logger.error(jsonObject.getString("took"));
-//             获取json串中buckets部分json内容
-            JSONArray jsonObjectBuckets = jsonObject.getJSONObject("aggregations").getJSONObject("sterms#" + aggregationAlias).getJSONArray("buckets");
+            /** 方法2：直接序列化聚合的桶，不再将整个响应转换为json字符串后用fastjson解析 */
+            String jsonObjectBuckets = bucketsJson(searchResponse.getAggregations().get(aggregationAlias));
 
-            logger.info(jsonObjectBuckets.toJSONString());
+            logger.info(jsonObjectBuckets);
 
             /** 方法3 */
 //            Aggregation aggregation = searchResponse.getAggregations().getAsMap().get(aggregationAlias);
 //            String jsonResult = JSON.toJSONString(aggregation, SerializerFeature.IgnoreErrorGetter);
 //            JSONObject jsonObject = JSON.parseObject(jsonResult);
 
-            return jsonObjectBuckets.toJSONString();
+            return jsonObjectBuckets;
         } catch (ElasticsearchException e) {
             if (e.status() == RestStatus.NOT_FOUND) {
                 throw new RuntimeException("[Elasticsearch]Index does not exist", e);
@@ -917,7 +1851,7 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
             searchSourceBuilder.size(0);
             searchRequest.source(searchSourceBuilder);
 
-            SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+            SearchResponse searchResponse = search(searchRequest);
 
             /** 方法1 */
 //            Aggregations aggregations = searchResponse.getAggregations();
@@ -927,28 +1861,17 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
 //                logger.info("key:"+bucket.getKeyAsString()+", docCount:"+bucket.getDocCount());
 //            }
 
-            /** 方法2 */
-            JSONObject jsonObject = JSON.parseObject(searchResponse.toString());
-//            logger.error(jsonObject.getString("took"));
+            /** 方法2：聚合别名即termsAggregationBuilder的名称 */
+            String jsonObjectBuckets = bucketsJson(searchResponse.getAggregations().get(termsAggregationBuilder.getName()));
 
-            // 动态获取聚合别名
-            String jsonAggregations = jsonObject.getJSONObject("aggregations").toJSONString();
-            String[] arr = jsonAggregations.split(":");
-            if (arr == null || arr[0].length() == 0) {
-                throw new RuntimeException("Invalid aggregate query.");
-            }
-            String getAlias = arr[0].replace("\"", "").replace("{", "");
-            // 获取json串中buckets部分json内容
-            JSONArray jsonObjectBuckets = jsonObject.getJSONObject("aggregations").getJSONObject(getAlias).getJSONArray("buckets");
-
-            logger.info(jsonObjectBuckets.toJSONString());
+            logger.info(jsonObjectBuckets);
 
             /** 方法3 */
 //            Aggregation aggregation = searchResponse.getAggregations().getAsMap().get(aggregationAlias);
 //            String jsonResult = JSON.toJSONString(aggregation, SerializerFeature.IgnoreErrorGetter);
 //            JSONObject jsonObject = JSON.parseObject(jsonResult);
 
-            return jsonObjectBuckets.toJSONString();
+            return jsonObjectBuckets;
         } catch (ElasticsearchException e) {
             if (e.status() == RestStatus.NOT_FOUND) {
                 throw new RuntimeException("[Elasticsearch]Index does not exist", e);
@@ -961,34 +1884,946 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
     }
 
     /**
-     * 搜索建议
+     * 分桶聚合查询：直接返回桶列表，嵌套的子聚合转换为桶的指标或下一层桶，不经过json序列化。
      * 控制台查询：
-     * 聚合分类company属性，并统计该分类下的平均年龄
      * GET posts/_search
-     * {"suggest":{"suggest_user":{"text":"jack","term":{"field":"user"}}}}
-     * @param indexName      索引；
-     * @param suggestBuilder 搜索建议示例：
-     *        SuggestionBuilder termSuggestionBuilder = SuggestBuilders.termSuggestion("user").text("kmichy");
-     *         SuggestBuilder suggestBuilder = new SuggestBuilder();
-     *         suggestBuilder.addSuggestion("suggest_user", termSuggestionBuilder);
+     * {"size":0,"query":{"match_all":{}},"aggs":{"by_company":{"terms":{"field":"company.keyword"},"aggs":{"average_age":{"avg":{"field":"age"}}}}}}
      *
-     * @return json格式String类型。
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param aggregationBuilder 分桶聚合（terms/histogram/date_histogram/range等）；
+     * @return 桶列表。
      * @throws Exception
      */
     @Override
-    public String suggestQueryByPage(String indexName, SuggestBuilder suggestBuilder) throws Exception {
-        Assert.notNull(suggestBuilder, "SuggestBuilder can not null.");
+    public List<AggregationBucket> aggregationQuery(String indexName, QueryBuilder queryBuilder, AggregationBuilder aggregationBuilder) throws Exception {
+        Aggregation aggregation = aggregate(indexName, queryBuilder, aggregationBuilder);
+        if (!(aggregation instanceof MultiBucketsAggregation)) {
+            throw new IllegalArgumentException("The aggregation " + aggregationBuilder.getName() + " is not a bucket aggregation.");
+        }
+        return AggregationBucket.of((MultiBucketsAggregation) aggregation);
+    }
+
+    /**
+     * 去重计数（cardinality）：HyperLogLog++近似计算，精度阈值以下的计数接近精确，内存约为precisionThreshold * 8字节。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"aggs":{"cardinality":{"cardinality":{"field":"user.keyword","precision_threshold":3000}}}}
+     *
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param field              字段，text字段使用keyword子字段；
+     * @param precisionThreshold 精度阈值，最大40000，为空时使用es默认值3000；
+     * @return 去重后的近似数量。
+     * @throws Exception
+     */
+    @Override
+    public long cardinality(String indexName, QueryBuilder queryBuilder, String field, Long precisionThreshold) throws Exception {
+        Assert.hasText(field, "The field can't be empty.");
+
+        CardinalityAggregationBuilder aggregationBuilder = AggregationBuilders.cardinality(CARDINALITY).field(field);
+        if (precisionThreshold != null) {
+            aggregationBuilder.precisionThreshold(precisionThreshold);
+        }
+        Cardinality cardinality = aggregate(indexName, queryBuilder, aggregationBuilder);
+        return cardinality.getValue();
+    }
+
+    /**
+     * 百分位数（percentiles）：TDigest近似计算，例如接口耗时的P50/P95/P99。
+     * 控制台查询：
+     * GET logs/_search
+     * {"size":0,"aggs":{"percentiles":{"percentiles":{"field":"latency","percents":[50,95,99]}}}}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时统计全部文档；
+     * @param field        数值字段；
+     * @param percents     百分位，例如：50, 95, 99；为空时使用es默认值1,5,25,50,75,95,99；
+     * @return key为百分位，value为该百分位的值，没有文档时为NaN。
+     * @throws Exception
+     */
+    @Override
+    public Map<Double, Double> percentiles(String indexName, QueryBuilder queryBuilder, String field, double... percents) throws Exception {
+        Assert.hasText(field, "The field can't be empty.");
+
+        PercentilesAggregationBuilder aggregationBuilder = AggregationBuilders.percentiles(PERCENTILES).field(field);
+        if (percents != null && percents.length > 0) {
+            aggregationBuilder.percentiles(percents);
+        }
+        Percentiles percentiles = aggregate(indexName, queryBuilder, aggregationBuilder);
+        return percentiles(percentiles);
+    }
+
+    /**
+     * 百分位排名（percentile_ranks）：TDigest近似计算指定值所处的百分位，例如耗时小于500毫秒的请求占比。
+     * 控制台查询：
+     * GET logs/_search
+     * {"size":0,"aggs":{"percentile_ranks":{"percentile_ranks":{"field":"latency","values":[200,500]}}}}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时统计全部文档；
+     * @param field        数值字段；
+     * @param values       需要计算排名的值，不能为空；
+     * @return key为值，value为小于等于该值的文档百分比。
+     * @throws Exception
+     */
+    @Override
+    public Map<Double, Double> percentileRanks(String indexName, QueryBuilder queryBuilder, String field, double... values) throws Exception {
+        Assert.hasText(field, "The field can't be empty.");
+        Assert.isTrue(values != null && values.length > 0, "The values can't be empty.");
+
+        PercentileRanks percentileRanks = aggregate(indexName, queryBuilder,
+                AggregationBuilders.percentileRanks(PERCENTILE_RANKS, values).field(field));
+        return percentileRanks(percentileRanks);
+    }
+
+    /**
+     * 采样聚合（sampler）：每个分片只取相关度最高的shardSize个文档执行子聚合，
+     * 适合在大量匹配文档上快速得到近似的分布。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"query":{"match":{"message":"elasticsearch"}},"aggs":{"sample":{"sampler":{"shard_size":200},"aggs":{"by_user":{"terms":{"field":"user.keyword"}}}}}}
+     *
+     * @param indexName           索引；
+     * @param queryBuilder        查询条件，为空时按文档顺序采样；
+     * @param shardSize           每个分片的采样文档数；
+     * @param aggregationBuilders 在样本上执行的子聚合；
+     * @return 样本：getDocCount()为样本文档数，子聚合通过getMetric/getBuckets/getAggregation获取。
+     * @throws Exception
+     */
+    @Override
+    public AggregationBucket sampler(String indexName, QueryBuilder queryBuilder, int shardSize,
+                                     AggregationBuilder... aggregationBuilders) throws Exception {
+        Assert.isTrue(shardSize > 0, "The shardSize must be greater than 0.");
+        Assert.notEmpty(aggregationBuilders, "The aggregationBuilders can't be empty.");
+
+        SamplerAggregationBuilder samplerBuilder = AggregationBuilders.sampler(SAMPLE).shardSize(shardSize);
+        for (AggregationBuilder aggregationBuilder : aggregationBuilders) {
+            samplerBuilder.subAggregation(aggregationBuilder);
+        }
+        return sample(aggregate(indexName, queryBuilder, samplerBuilder));
+    }
+
+    /**
+     * 多样化采样聚合（diversified_sampler）：在sampler的基础上限制样本中同一字段值的文档数，
+     * 避免少数高频值（例如同一个用户的大量帖子）占满样本。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"aggs":{"sample":{"diversified_sampler":{"shard_size":200,"field":"user.keyword","max_docs_per_value":3},"aggs":{"keywords":{"significant_terms":{"field":"tags"}}}}}}
+     *
+     * @param indexName           索引；
+     * @param queryBuilder        查询条件，为空时按文档顺序采样；
+     * @param shardSize           每个分片的采样文档数；
+     * @param field               去重字段；
+     * @param maxDocsPerValue     样本中同一字段值的最大文档数；
+     * @param aggregationBuilders 在样本上执行的子聚合；
+     * @return 样本：getDocCount()为样本文档数，子聚合通过getMetric/getBuckets/getAggregation获取。
+     * @throws Exception
+     */
+    @Override
+    public AggregationBucket diversifiedSampler(String indexName, QueryBuilder queryBuilder, int shardSize, String field,
+                                                int maxDocsPerValue, AggregationBuilder... aggregationBuilders) throws Exception {
+        Assert.isTrue(shardSize > 0, "The shardSize must be greater than 0.");
+        Assert.hasText(field, "The field can't be empty.");
+        Assert.isTrue(maxDocsPerValue > 0, "The maxDocsPerValue must be greater than 0.");
+        Assert.notEmpty(aggregationBuilders, "The aggregationBuilders can't be empty.");
+
+        DiversifiedAggregationBuilder samplerBuilder = AggregationBuilders.diversifiedSampler(SAMPLE)
+                .shardSize(shardSize).field(field).maxDocsPerValue(maxDocsPerValue);
+        for (AggregationBuilder aggregationBuilder : aggregationBuilders) {
+            samplerBuilder.subAggregation(aggregationBuilder);
+        }
+        return sample(aggregate(indexName, queryBuilder, samplerBuilder));
+    }
+
+    /**
+     * 执行只返回聚合结果的查询（size为0），查询结果可以被查询结果缓存命中
+     */
+    private <A extends Aggregation> A aggregate(String indexName, QueryBuilder queryBuilder, AggregationBuilder aggregationBuilder) {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.notNull(aggregationBuilder, "The aggregationBuilder can't be empty.");
+
+        try {
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                    .query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder)
+                    .aggregation(aggregationBuilder)
+                    .size(0);
+            SearchResponse searchResponse = search(new SearchRequest(indexName).source(searchSourceBuilder));
+            return searchResponse.getAggregations().get(aggregationBuilder.getName());
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 百分位 -> 该百分位的值
+     */
+    static Map<Double, Double> percentiles(Percentiles percentiles) {
+        Map<Double, Double> result = new LinkedHashMap<>();
+        for (Percentile percentile : percentiles) {
+            result.put(percentile.getPercent(), percentile.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 值 -> 该值的百分位排名。PercentileRanks中的Percentile，getValue()为请求的值，getPercent()为排名
+     */
+    static Map<Double, Double> percentileRanks(PercentileRanks percentileRanks) {
+        Map<Double, Double> result = new LinkedHashMap<>();
+        for (Percentile percentile : percentileRanks) {
+            result.put(percentile.getValue(), percentile.getPercent());
+        }
+        return result;
+    }
+
+    private static AggregationBucket sample(SingleBucketAggregation sample) {
+        return new AggregationBucket(sample.getName(), sample.getName(), sample.getDocCount(), sample.getAggregations());
+    }
+
+    /**
+     * composite聚合流式查询：按after_key逐页读取全部桶，客户端和集群的内存都只与每页桶数有关。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"aggs":{"by_user":{"composite":{"size":1000,"sources":[{"user":{"terms":{"field":"user.keyword"}}}],"after":{"user":"kimchy"}}}}}
+     *
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param aggregationBuilder composite聚合，每页桶数取size()；
+     * @return 延迟读取的桶，Stream关闭时停止预取，建议配合try-with-resources使用。
+     * @throws Exception
+     */
+    @Override
+    public Stream<AggregationBucket> compositeAggregation(String indexName, QueryBuilder queryBuilder,
+                                                          CompositeAggregationBuilder aggregationBuilder) throws Exception {
+        return compositeIterator(indexName, queryBuilder, aggregationBuilder).stream();
+    }
+
+    /**
+     * composite聚合流式查询，逐个桶回调
+     *
+     * @param indexName          索引；
+     * @param queryBuilder       查询条件，为空时统计全部文档；
+     * @param aggregationBuilder composite聚合，每页桶数取size()；
+     * @param consumer           桶处理；
+     * @return 处理的桶数。
+     * @throws Exception
+     */
+    @Override
+    public long compositeAggregation(String indexName, QueryBuilder queryBuilder, CompositeAggregationBuilder aggregationBuilder,
+                                     Consumer<AggregationBucket> consumer) throws Exception {
+        Assert.notNull(consumer, "The consumer can't be empty.");
+
+        try (ElasticsearchCompositeIterator iterator = compositeIterator(indexName, queryBuilder, aggregationBuilder)) {
+            iterator.forEachRemaining(consumer);
+            logger.info("[compositeAggregation]索引:{}，聚合:{}，桶数:{}", indexName, aggregationBuilder.getName(), iterator.getFetched());
+            return iterator.getFetched();
+        }
+    }
+
+    private ElasticsearchCompositeIterator compositeIterator(String indexName, QueryBuilder queryBuilder,
+                                                             CompositeAggregationBuilder aggregationBuilder) {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.notNull(aggregationBuilder, "The aggregationBuilder can't be empty.");
+
+        try {
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                    .query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder)
+                    .size(0);
+            return new ElasticsearchCompositeIterator(client, new SearchRequest(indexName).source(searchSourceBuilder), aggregationBuilder);
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 搜索建议
+     * 控制台查询：
+     * 聚合分类company属性，并统计该分类下的平均年龄
+     * GET posts/_search
+     * {"suggest":{"suggest_user":{"text":"jack","term":{"field":"user"}}}}
+     * @param indexName      索引；
+     * @param suggestBuilder 搜索建议示例：
+     *        SuggestionBuilder termSuggestionBuilder = SuggestBuilders.termSuggestion("user").text("kmichy");
+     *         SuggestBuilder suggestBuilder = new SuggestBuilder();
+     *         suggestBuilder.addSuggestion("suggest_user", termSuggestionBuilder);
+     *
+     * @return json格式String类型。
+     * @throws Exception
+     */
+    @Override
+    public String suggestQueryByPage(String indexName, SuggestBuilder suggestBuilder) throws Exception {
+        Assert.notNull(suggestBuilder, "SuggestBuilder can not null.");
+
+        try {
+            // 设置queryBuilder
+            SearchRequest searchRequest = new SearchRequest(indexName);
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+            searchSourceBuilder.suggest(suggestBuilder);
+            searchRequest.source(searchSourceBuilder);
+
+            SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+            String result = searchResponse.getSuggest().toString();
+            logger.info(result);
+            return result;
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 输入联想（completion suggester）：按前缀返回建议，相同文本的建议只返回一个。
+     * 热点前缀在spring.elasticsearch.suggest.cacheTtl内直接返回本地缓存的结果。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"_source":["user"],"suggest":{"suggest":{"prefix":"jac","completion":{"field":"suggest","size":10,"skip_duplicates":true}}}}
+     *
+     * @param indexName    索引；
+     * @param field        completion类型的字段；
+     * @param prefix       输入的前缀；
+     * @param size         建议数；
+     * @param sourceFilter 建议中返回的文档字段（payload），为空时返回全部字段；
+     * @return 按分数降序的建议列表，不可修改。
+     * @throws Exception
+     */
+    @Override
+    public List<SuggestOption> completionSuggest(String indexName, String field, String prefix, int size,
+                                                 SourceFilter sourceFilter) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(field, "The field can't be empty.");
+        Assert.hasText(prefix, "The prefix can't be empty.");
+
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().size(0)
+                .suggest(new SuggestBuilder().addSuggestion(SUGGEST,
+                        SuggestBuilders.completionSuggestion(field).prefix(prefix).size(size).skipDuplicates(true)));
+        sourceFilter(searchSourceBuilder, sourceFilter);
+
+        String key = "completion/" + indexName + "/" + field + "/" + size + "/"
+                + (sourceFilter == null ? "" : sourceFilter.isFetchSource() + Arrays.toString(sourceFilter.getIncludes())
+                + Arrays.toString(sourceFilter.getExcludes()) + Arrays.toString(sourceFilter.getDocValueFields()))
+                + "/" + prefix;
+        return suggestCache.get(key, () -> {
+            List<SuggestOption> options = new ArrayList<>();
+            CompletionSuggestion suggestion = suggest(indexName, searchSourceBuilder).getSuggestion(SUGGEST);
+            for (CompletionSuggestion.Entry entry : suggestion.getEntries()) {
+                for (CompletionSuggestion.Entry.Option option : entry.getOptions()) {
+                    SearchHit hit = option.getHit();
+                    options.add(new SuggestOption(option.getText().string(), option.getScore(),
+                            hit == null ? null : hit.getId(), hit != null && hit.hasSource() ? hit.getSourceAsMap() : null, 0));
+                }
+            }
+            return options;
+        });
+    }
+
+    /**
+     * 拼写纠错（term suggester）：按输入文本中每个词返回相近的候选词，热点文本同样使用本地缓存。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":0,"suggest":{"suggest":{"text":"kimchi","term":{"field":"user","size":5}}}}
+     *
+     * @param indexName 索引；
+     * @param field     字段；
+     * @param text      输入文本；
+     * @param size      每个词的候选词数；
+     * @return 各个词的候选词，每个词内按分数降序，不可修改。
+     * @throws Exception
+     */
+    @Override
+    public List<SuggestOption> termSuggest(String indexName, String field, String text, int size) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(field, "The field can't be empty.");
+        Assert.hasText(text, "The text can't be empty.");
+
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder().size(0)
+                .suggest(new SuggestBuilder().addSuggestion(SUGGEST, SuggestBuilders.termSuggestion(field).text(text).size(size)));
+
+        String key = "term/" + indexName + "/" + field + "/" + size + "/" + text;
+        return suggestCache.get(key, () -> {
+            List<SuggestOption> options = new ArrayList<>();
+            TermSuggestion suggestion = suggest(indexName, searchSourceBuilder).getSuggestion(SUGGEST);
+            for (TermSuggestion.Entry entry : suggestion.getEntries()) {
+                for (TermSuggestion.Entry.Option option : entry.getOptions()) {
+                    options.add(new SuggestOption(option.getText().string(), option.getScore(), null, null, option.getFreq()));
+                }
+            }
+            return options;
+        });
+    }
+
+    /**
+     * 预编译查询：将查询结构注册为mustache stored search template
+     *
+     * @param templateId          模板id；
+     * @param searchSourceBuilder 查询结构，变量写为"{{name}}"；
+     * @return 预编译查询。
+     * @throws Exception
+     */
+    @Override
+    public PreparedQuery prepareQuery(String templateId, SearchSourceBuilder searchSourceBuilder) throws Exception {
+        Assert.notNull(searchSourceBuilder, "The searchSourceBuilder can't be null.");
+
+        return prepareQuery(templateId, searchSourceBuilder.toString());
+    }
+
+    /**
+     * 预编译查询：查询结构为json格式的mustache模板
+     *
+     * @param templateId 模板id；
+     * @param source     mustache模板；
+     * @return 预编译查询。
+     * @throws Exception
+     */
+    @Override
+    public PreparedQuery prepareQuery(String templateId, String source) throws Exception {
+        Assert.hasText(templateId, "The templateId can't be empty.");
+        Assert.hasText(source, "The source can't be empty.");
+
+        putStoredScript(templateId, "mustache", source);
+        return new PreparedQuery(templateId, source);
+    }
+
+    /**
+     * 执行预编译查询
+     *
+     * @param indexName     索引；
+     * @param preparedQuery 预编译查询；
+     * @param params        参数；
+     * @return 查询结果。
+     * @throws Exception
+     */
+    @Override
+    public List<Map<String, Object>> query(String indexName, PreparedQuery preparedQuery, Map<String, Object> params) throws Exception {
+        return query(indexName, preparedQuery, params, this::hitAsMap);
+    }
+
+    /**
+     * 执行预编译查询，将_source直接解码为指定类型
+     *
+     * @param indexName     索引；
+     * @param preparedQuery 预编译查询；
+     * @param params        参数；
+     * @param clazz         文档类型；
+     * @return 查询结果。
+     * @throws Exception
+     */
+    @Override
+    public <T> List<T> query(String indexName, PreparedQuery preparedQuery, Map<String, Object> params, Class<T> clazz) throws Exception {
+        Assert.notNull(clazz, "The clazz can't be null.");
+        return query(indexName, preparedQuery, params, decoder(clazz));
+    }
+
+    private <T> List<T> query(String indexName, PreparedQuery preparedQuery, Map<String, Object> params,
+                              Function<SearchHit, T> mapper) {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.notNull(preparedQuery, "The preparedQuery can't be null.");
+        preparedQuery.validate(params);
+
+        SearchTemplateRequest request = new SearchTemplateRequest(new SearchRequest(indexName));
+        request.setScriptType(ScriptType.STORED);
+        request.setScript(preparedQuery.getTemplateId());
+        request.setScriptParams(params);
+
+        try {
+            SearchResponse searchResponse;
+            try {
+                searchResponse = client.searchTemplate(request, RequestOptions.DEFAULT).getResponse();
+            } catch (ElasticsearchException e) {
+                // 集群重建或模板被删除后重新注册一次
+                if (e.getDetailedMessage() == null || !e.getDetailedMessage().contains("unable to find script")) {
+                    throw e;
+                }
+                logger.warn("[ElasticsearchScript]模板{}不存在，重新注册", preparedQuery.getTemplateId());
+                putStoredScript(preparedQuery.getTemplateId(), "mustache", preparedQuery.getSource());
+                searchResponse = client.searchTemplate(request, RequestOptions.DEFAULT).getResponse();
+            }
+
+            List<T> list = new ArrayList<>();
+            for (SearchHit hit : searchResponse.getHits()) {
+                list.add(mapper.apply(hit));
+            }
+            return list;
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Suggest suggest(String indexName, SearchSourceBuilder searchSourceBuilder) {
+        try {
+            SearchResponse searchResponse = client.search(new SearchRequest(indexName).source(searchSourceBuilder), RequestOptions.DEFAULT);
+            return searchResponse.getSuggest();
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * es文档分页查询
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
+                                                 String sortFieldName, QueryBuilder queryBuilder) throws Exception {
+        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, (HighlightBuilder) null);
+    }
+
+    /**
+     * es文档分页查询，只返回指定的字段
+     * 控制台查询：
+     * GET posts/_search
+     * {"from":0,"size":10,"query":{"match_all":{}},"_source":{"includes":["user","postDate"]},"docvalue_fields":["likes"]}
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @param sourceFilter  返回字段，为空时返回全部字段；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
+                                                 String sortFieldName, QueryBuilder queryBuilder,
+                                                 SourceFilter sourceFilter) throws Exception {
+        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, null, sourceFilter);
+    }
+
+
+    /**
+     * es文档分页查询
+     *
+     * @param indexName        索引；
+     * @param pageSize         页显示大小；
+     * @param pageNow          当前页；
+     * @param sortFieldName    排序字段；
+     * @param queryBuilder     全文检索；
+     * @param highlightBuilder 高亮显示搜索关键字；
+     * @return
+     * @throws Exception
+     */
+    public List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
+                                                 String sortFieldName, QueryBuilder queryBuilder,
+                                                 HighlightBuilder highlightBuilder) throws Exception {
+        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, highlightBuilder, null);
+    }
+
+    /**
+     * es文档分页查询
+     *
+     * @param indexName        索引；
+     * @param pageSize         页显示大小；
+     * @param pageNow          当前页；
+     * @param sortFieldName    排序字段；
+     * @param queryBuilder     全文检索；
+     * @param highlightBuilder 高亮显示搜索关键字；
+     * @param sourceFilter     返回字段，为空时返回全部字段；
+     * @return
+     * @throws Exception
+     */
+    public List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
+                                                 String sortFieldName, QueryBuilder queryBuilder,
+                                                 HighlightBuilder highlightBuilder, SourceFilter sourceFilter) throws Exception {
+        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, highlightBuilder, sourceFilter, this::hitAsMap);
+    }
+
+    /**
+     * es文档分页查询，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @param clazz         文档类型；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public <T> List<T> queryByPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                                   QueryBuilder queryBuilder, Class<T> clazz) throws Exception {
+        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, null, clazz);
+    }
+
+    /**
+     * es文档分页查询，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @param sourceFilter  返回字段，为空时返回全部字段；
+     * @param clazz         文档类型；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public <T> List<T> queryByPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                                   QueryBuilder queryBuilder, SourceFilter sourceFilter, Class<T> clazz) throws Exception {
+        Assert.notNull(clazz, "The clazz can't be null.");
+        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, null, sourceFilter, decoder(clazz));
+    }
+
+    /**
+     * es文档分页查询，返回延迟解析的视图：访问字段时才解析该字段，未访问的字段不会被解码。
+     * 适合只展示大文档中少数字段的列表查询。
+     *
+     * @param indexName     索引；
+     * @param pageSize      页显示大小；
+     * @param pageNow       当前页；
+     * @param sortFieldName 排序字段；
+     * @param queryBuilder  全文检索；
+     * @param sourceFilter  返回字段，为空时返回全部字段；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public List<HitView> queryViewsByPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                                          QueryBuilder queryBuilder, SourceFilter sourceFilter) throws Exception {
+        // 显式包含的字段在视图第一次被访问时一次解析
+        List<String> paths = new ArrayList<>();
+        if (sourceFilter != null) {
+            for (String include : sourceFilter.getIncludes()) {
+                if (!Regex.isSimpleMatchPattern(include)) {
+                    paths.add(include);
+                }
+            }
+        }
+        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, null, sourceFilter,
+                hit -> new HitView(hit, paths));
+    }
+
+    /**
+     * 匹配的文档数
+     * 控制台查询：
+     * GET posts/_count
+     * {"query":{"term":{"user":"kimchy"}}}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时统计全部文档；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public long count(String indexName, QueryBuilder queryBuilder) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+
+        try {
+            CountRequest countRequest = new CountRequest(indexName)
+                    .source(new SearchSourceBuilder().query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder));
+            CountResponse countResponse = client.count(countRequest, RequestOptions.DEFAULT);
+            return countResponse.getCount();
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * es文档分页查询，同时返回匹配的文档总数
+     *
+     * @param indexName      索引；
+     * @param pageSize       页显示大小；
+     * @param pageNow        当前页；
+     * @param sortFieldName  排序字段；
+     * @param queryBuilder   全文检索；
+     * @param sourceFilter   返回字段，为空时返回全部字段；
+     * @param trackTotalHits 总数统计上限：Page.TRACK_TOTAL_HITS_DISABLED不统计，Page.TRACK_TOTAL_HITS_ACCURATE精确统计，
+     *                       其他值统计到该值为止，超过时relation为gte；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public Page<Map<String, Object>> queryPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                                               QueryBuilder queryBuilder, SourceFilter sourceFilter, int trackTotalHits) throws Exception {
+        return queryPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, null, sourceFilter, trackTotalHits, this::hitAsMap);
+    }
+
+    /**
+     * es文档分页查询，同时返回匹配的文档总数，文档直接解码为指定类型
+     *
+     * @param indexName      索引；
+     * @param pageSize       页显示大小；
+     * @param pageNow        当前页；
+     * @param sortFieldName  排序字段；
+     * @param queryBuilder   全文检索；
+     * @param sourceFilter   返回字段，为空时返回全部字段；
+     * @param trackTotalHits 总数统计上限，同queryPage；
+     * @param clazz          文档类型；
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public <T> Page<T> queryPage(String indexName, Integer pageSize, Integer pageNow, String sortFieldName,
+                                 QueryBuilder queryBuilder, SourceFilter sourceFilter, int trackTotalHits, Class<T> clazz) throws Exception {
+        Assert.notNull(clazz, "The clazz can't be null.");
+        return queryPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, null, sourceFilter, trackTotalHits, decoder(clazz));
+    }
+
+    /**
+     * 只返回当前页文档的分页查询不统计总数
+     */
+    private <T> List<T> queryByPage(String indexName, Integer pageSize, Integer pageNow,
+                                    String sortFieldName, QueryBuilder queryBuilder,
+                                    HighlightBuilder highlightBuilder, SourceFilter sourceFilter,
+                                    Function<SearchHit, T> mapper) {
+        return queryPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, highlightBuilder, sourceFilter,
+                Page.TRACK_TOTAL_HITS_DISABLED, mapper).getContent();
+    }
+
+    private <T> Page<T> queryPage(String indexName, Integer pageSize, Integer pageNow,
+                                  String sortFieldName, QueryBuilder queryBuilder,
+                                  HighlightBuilder highlightBuilder, SourceFilter sourceFilter,
+                                  int trackTotalHits, Function<SearchHit, T> mapper) {
+        List<T> mapList = new ArrayList<>();
+
+        try {
+            if (pageNow <= 0) {
+                pageNow = 1;
+            }
+
+            if (pageSize <= 0) {
+                pageSize = 10;
+            }
+
+            Integer from = pageSize * (pageNow - 1);
+            Integer size = pageSize;
 
-        try {
             // 设置queryBuilder
             SearchRequest searchRequest = new SearchRequest(indexName);
             SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-            searchSourceBuilder.suggest(suggestBuilder);
-            searchRequest.source(searchSourceBuilder);
 
-            SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
-            String result = searchResponse.getSuggest().toString();
-            logger.info(result);
+            /** 查询 */
+            searchSourceBuilder.query(queryBuilder);
+
+
+            /** 分页 */
+            searchSourceBuilder.from(from);
+            searchSourceBuilder.size(size);
+            searchSourceBuilder.timeout(new TimeValue(60, TimeUnit.SECONDS));
+
+            /** 总数统计 */
+            searchSourceBuilder.trackTotalHitsUpTo(trackTotalHits);
+
+            /** 排序：默认按分数(_score)降序排序 */
+            if (StringUtils.hasText(sortFieldName)) {
+                searchSourceBuilder.sort(new FieldSortBuilder(sortFieldName).order(SortOrder.DESC));
+//                searchSourceBuilder.sort(new ScoreSortBuilder().order(SortOrder.DESC));
+//                searchSourceBuilder.sort(new FieldSortBuilder("_id").order(SortOrder.ASC));
+            }
+
+            /** 排除，包含某些字段*/
+            sourceFilter(searchSourceBuilder, sourceFilter);
+
+            /** 高亮 */
+            if (!StringUtils.isEmpty(highlightBuilder)) {
+                searchSourceBuilder.highlighter(highlightBuilder);
+            }
+
+            searchRequest.source(searchSourceBuilder);
+
+            SearchResponse searchResponse = search(searchRequest);
+            SearchHits hits = searchResponse.getHits();
+            for (SearchHit hit : hits) {
+                mapList.add(mapper.apply(hit));
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("[ElasticsearchQuery]{}", mapList);
+            }
+
+            TotalHits totalHits = hits.getTotalHits();
+            if (totalHits == null) {
+                return new Page<>(mapList, -1, null, searchResponse.getTook().millis(), pageNow, pageSize);
+            }
+            return new Page<>(mapList, totalHits.value,
+                    totalHits.relation == TotalHits.Relation.EQUAL_TO ? Page.RELATION_EQ : Page.RELATION_GTE,
+                    searchResponse.getTook().millis(), pageNow, pageSize);
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 多查询合并（_msearch）：多个分页查询及聚合查询在一次请求中执行，总耗时约等于最慢的一个查询。
+     * 每个查询的失败相互隔离，失败的查询在结果中isFailed()为true。
+     * 控制台查询：
+     * GET _msearch
+     * {"index":"posts"}
+     * {"query":{"match_all":{}},"from":0,"size":10}
+     * {"index":"posts"}
+     * {"size":0,"aggs":{"by_company":{"terms":{"field":"company.keyword"}}}}
+     *
+     * @param items 查询列表；
+     * @return 与items顺序一致的查询结果。
+     * @throws Exception
+     */
+    @Override
+    public List<MultiSearchResult> msearch(List<MultiSearchItem> items) throws Exception {
+        Assert.notEmpty(items, "The items can't be empty.");
+
+        List<MultiSearchResult> results = new ArrayList<>(items.size());
+        try {
+            MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+            for (MultiSearchItem item : items) {
+                Assert.hasText(item.getIndexName(), "The indexName can't be empty.");
+                SearchSourceBuilder searchSourceBuilder = pageSource(item.getPageSize(), item.getPageNow(),
+                        item.getSortFieldName(), item.getQueryBuilder());
+                sourceFilter(searchSourceBuilder, item.getSourceFilter());
+                for (AggregationBuilder aggregationBuilder : item.getAggregations()) {
+                    searchSourceBuilder.aggregation(aggregationBuilder);
+                }
+                multiSearchRequest.add(new SearchRequest(item.getIndexName()).source(searchSourceBuilder));
+            }
+
+            MultiSearchResponse multiSearchResponse = client.msearch(multiSearchRequest, RequestOptions.DEFAULT);
+            // 响应条目与请求顺序一致
+            for (MultiSearchResponse.Item responseItem : multiSearchResponse.getResponses()) {
+                if (responseItem.isFailure()) {
+                    logger.warn("[ElasticsearchMultiSearch]查询失败:{}", responseItem.getFailureMessage());
+                    results.add(new MultiSearchResult(responseItem.getFailure()));
+                    continue;
+                }
+
+                SearchResponse searchResponse = responseItem.getResponse();
+                List<Map<String, Object>> mapList = new ArrayList<>();
+                for (SearchHit hit : searchResponse.getHits()) {
+                    mapList.add(hitAsMap(hit));
+                }
+                TotalHits totalHits = searchResponse.getHits().getTotalHits();
+                results.add(new MultiSearchResult(mapList, totalHits == null ? 0 : totalHits.value,
+                        searchResponse.getAggregations(), searchResponse.getTook().millis()));
+            }
+            logger.info("[ElasticsearchMultiSearch]查询数:{}，耗时:{}", items.size(), multiSearchResponse.getTook());
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return results;
+    }
+
+    /**
+     * 构建分页查询：排序规则与queryByPage一致；pageSize为0时只返回总数及聚合结果，不返回文档，为空或小于0时默认10
+     */
+    private SearchSourceBuilder pageSource(Integer pageSize, Integer pageNow, String sortFieldName, QueryBuilder queryBuilder) {
+        if (pageNow == null || pageNow <= 0) {
+            pageNow = 1;
+        }
+
+        if (pageSize == null || pageSize < 0) {
+            pageSize = 10;
+        }
+
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder);
+        searchSourceBuilder.from(pageSize * (pageNow - 1));
+        searchSourceBuilder.size(pageSize);
+        searchSourceBuilder.timeout(new TimeValue(60, TimeUnit.SECONDS));
+
+        /** 排序：默认按分数(_score)降序排序 */
+        if (StringUtils.hasText(sortFieldName)) {
+            searchSourceBuilder.sort(new FieldSortBuilder(sortFieldName).order(SortOrder.DESC));
+        }
+        return searchSourceBuilder;
+    }
+
+    /**
+     * 列式查询：只从doc values读取指定字段（不返回_source），每个字段构建为一列基本类型数组，用于报表计算。
+     * 控制台查询：
+     * GET posts/_search
+     * {"size":1000,"query":{"match_all":{}},"_source":false,"docvalue_fields":["likes",{"field":"postDate","format":"epoch_millis"}]}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时查询全部文档；
+     * @param size         最多返回的文档数，不能超过index.max_result_window，更多的文档请使用stream/export；
+     * @param columns      列名及类型，字段需要开启doc values（text字段不支持），例如：
+     *                     Map<String, ColumnarResult.ColumnType> columns = new LinkedHashMap<>();
+     *                     columns.put("likes", ColumnarResult.ColumnType.LONG);
+     *                     columns.put("user", ColumnarResult.ColumnType.STRING);
+     * @return 列式结果。
+     * @throws Exception
+     */
+    @Override
+    public ColumnarResult queryColumns(String indexName, QueryBuilder queryBuilder, int size,
+                                       Map<String, ColumnarResult.ColumnType> columns) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.notEmpty(columns, "The columns can't be empty.");
+
+        try {
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+            searchSourceBuilder.query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder);
+            searchSourceBuilder.size(size);
+            searchSourceBuilder.timeout(new TimeValue(60, TimeUnit.SECONDS));
+            searchSourceBuilder.fetchSource(false);
+            for (Map.Entry<String, ColumnarResult.ColumnType> column : columns.entrySet()) {
+                if (column.getValue() == ColumnarResult.ColumnType.DATE) {
+                    searchSourceBuilder.docValueField(column.getKey(), "epoch_millis");
+                } else {
+                    searchSourceBuilder.docValueField(column.getKey());
+                }
+            }
+
+            SearchResponse searchResponse = client.search(new SearchRequest(indexName).source(searchSourceBuilder), RequestOptions.DEFAULT);
+            ColumnarResult result = new ColumnarResult(searchResponse.getHits().getHits(), columns);
+            logger.info("[ElasticsearchColumns]索引:{}，列:{}，行数:{}", indexName, columns.keySet(), result.size());
             return result;
         } catch (ElasticsearchException e) {
             if (e.status() == RestStatus.NOT_FOUND) {
@@ -1002,91 +2837,167 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
     }
 
     /**
-     * es文档分页查询
+     * 游标分页查询（search_after），以唯一字段作为排序的唯一性补充。
+     * 次排序字段需要有doc values，不要使用_id：_id排序需要在堆内存中加载fielddata。
      *
-     * @param indexName     索引；
-     * @param pageSize      页显示大小；
-     * @param pageNow       当前页；
-     * @param sortFieldName 排序字段；
-     * @param queryBuilder  全文检索；
-     * @return
+     * @param indexName       索引；
+     * @param pageSize        页显示大小；
+     * @param sortFieldName   排序字段，为空时按分数(_score)降序排序；
+     * @param tiebreakerField 排序值相同时的次排序字段，每个文档取值必须唯一，建议使用保存了文档id的keyword字段；
+     * @param queryBuilder    查询条件；
+     * @param cursor          上一页返回的游标，查询第一页时为空；
+     * @return 当前页文档及下一页的游标。
      * @throws Exception
      */
     @Override
-    public List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
-                                                 String sortFieldName, QueryBuilder queryBuilder) throws Exception {
-        return queryByPage(indexName, pageSize, pageNow, sortFieldName, queryBuilder, null);
+    public CursorPage<Map<String, Object>> queryByCursor(String indexName, Integer pageSize, String sortFieldName,
+                                                         String tiebreakerField, QueryBuilder queryBuilder, String cursor) throws Exception {
+        return queryByCursor(indexName, pageSize, sortFieldName, tiebreakerField, queryBuilder, null, cursor);
     }
 
-
     /**
-     * es文档分页查询
+     * 游标分页查询（search_after），只返回指定的字段
      *
-     * @param indexName        索引；
-     * @param pageSize         页显示大小；
-     * @param pageNow          当前页；
-     * @param sortFieldName    排序字段；
-     * @param queryBuilder     全文检索；
-     * @param highlightBuilder 高亮显示搜索关键字；
-     * @return
+     * @param indexName       索引；
+     * @param pageSize        页显示大小；
+     * @param sortFieldName   排序字段，为空时按分数(_score)降序排序；
+     * @param tiebreakerField 排序值相同时的次排序字段，每个文档取值必须唯一；
+     * @param queryBuilder    查询条件；
+     * @param sourceFilter    返回字段，为空时返回全部字段；
+     * @param cursor          上一页返回的游标，查询第一页时为空；
+     * @return 当前页文档及下一页的游标。
      * @throws Exception
      */
-    public List<Map<String, Object>> queryByPage(String indexName, Integer pageSize, Integer pageNow,
-                                                 String sortFieldName, QueryBuilder queryBuilder,
-                                                 HighlightBuilder highlightBuilder) throws Exception {
+    @Override
+    public CursorPage<Map<String, Object>> queryByCursor(String indexName, Integer pageSize, String sortFieldName,
+                                                         String tiebreakerField, QueryBuilder queryBuilder,
+                                                         SourceFilter sourceFilter, String cursor) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.hasText(tiebreakerField, "The tiebreakerField can't be empty.");
+
         List<Map<String, Object>> mapList = new ArrayList<>();
+        String nextCursor = null;
 
         try {
-            if (pageNow <= 0) {
-                pageNow = 1;
-            }
-
-            if (pageSize <= 0) {
+            if (pageSize == null || pageSize <= 0) {
                 pageSize = 10;
             }
 
-            Integer from = pageSize * (pageNow - 1);
-            Integer size = pageSize;
-
-            // 设置queryBuilder
             SearchRequest searchRequest = new SearchRequest(indexName);
             SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
 
             /** 查询 */
-            searchSourceBuilder.query(queryBuilder);
-
-
-            /** 分页 */
-            searchSourceBuilder.from(from);
-            searchSourceBuilder.size(size);
+            searchSourceBuilder.query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder);
+            searchSourceBuilder.size(pageSize);
             searchSourceBuilder.timeout(new TimeValue(60, TimeUnit.SECONDS));
 
-            /** 排序：默认按分数(_score)降序排序 */
+            /** 排序：排序字段降序，再按唯一字段升序，保证排序稳定 */
             if (StringUtils.hasText(sortFieldName)) {
                 searchSourceBuilder.sort(new FieldSortBuilder(sortFieldName).order(SortOrder.DESC));
-//                searchSourceBuilder.sort(new ScoreSortBuilder().order(SortOrder.DESC));
-//                searchSourceBuilder.sort(new FieldSortBuilder("_id").order(SortOrder.ASC));
+            } else {
+                searchSourceBuilder.sort(new ScoreSortBuilder().order(SortOrder.DESC));
             }
+            searchSourceBuilder.sort(new FieldSortBuilder(tiebreakerField).order(SortOrder.ASC));
+            sourceFilter(searchSourceBuilder, sourceFilter);
 
-            /** 排除，包含某些字段*/
-//            String[] includes;
-//            searchSourceBuilder.fetchSource(includes, excludes);
-
-            /** 高亮 */
-            if (!StringUtils.isEmpty(highlightBuilder)) {
-                searchSourceBuilder.highlighter(highlightBuilder);
+            /** 从上一页最后一条文档的排序值继续查询 */
+            if (StringUtils.hasText(cursor)) {
+                searchSourceBuilder.searchAfter(decodeCursor(cursor));
             }
 
             searchRequest.source(searchSourceBuilder);
 
             SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
-            SearchHits hits = searchResponse.getHits();
+            SearchHit[] hits = searchResponse.getHits().getHits();
             for (SearchHit hit : hits) {
-                Map<String, Object> sourceAsMap = hit.getSourceAsMap();
-                sourceAsMap.put("_id", hit.getId());
-                mapList.add(sourceAsMap);
+                mapList.add(hitAsMap(hit));
+            }
+
+            // 不足一页说明已经是最后一页
+            if (hits.length == pageSize) {
+                nextCursor = encodeCursor(hits[hits.length - 1].getSortValues());
+            }
+            logger.info("[ElasticsearchCursor]索引:{}，返回文档数:{}，是否有下一页:{}", indexName, hits.length, nextCursor != null);
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]Index does not exist", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The query fails.", e);
             }
-            logger.info(mapList.toString());
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return new CursorPage<>(mapList, nextCursor);
+    }
+
+    /**
+     * 流式读取全部匹配的文档：按批次滚动查询（scroll），调用方处理当前批次时后台预取下一批次，内存占用与结果集大小无关。
+     * 读取完毕时自动清除scroll上下文，提前结束时需要关闭Stream，例如：
+     * try (Stream<Map<String, Object>> stream = elasticsearchTemplate.stream("posts", QueryBuilders.matchAllQuery())) {
+     *     stream.forEach(...);
+     * }
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时读取全部文档；
+     * @return 文档流，每个文档包含_id。
+     * @throws Exception
+     */
+    @Override
+    public Stream<Map<String, Object>> stream(String indexName, QueryBuilder queryBuilder) throws Exception {
+        return stream(indexName, queryBuilder, null);
+    }
+
+    /**
+     * 流式读取全部匹配的文档，只返回指定的字段
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时读取全部文档；
+     * @param sourceFilter 返回字段，为空时返回全部字段；
+     * @return 文档流，每个文档包含_id。
+     * @throws Exception
+     */
+    @Override
+    public Stream<Map<String, Object>> stream(String indexName, QueryBuilder queryBuilder, SourceFilter sourceFilter) throws Exception {
+        return stream(indexName, queryBuilder, sourceFilter, this::hitAsMap);
+    }
+
+    /**
+     * 流式读取全部匹配的文档，文档直接解码为指定类型，不经过中间Map
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时读取全部文档；
+     * @param sourceFilter 返回字段，为空时返回全部字段；
+     * @param clazz        文档类型；
+     * @return 文档流。
+     * @throws Exception
+     */
+    @Override
+    public <T> Stream<T> stream(String indexName, QueryBuilder queryBuilder, SourceFilter sourceFilter, Class<T> clazz) throws Exception {
+        Assert.notNull(clazz, "The clazz can't be null.");
+        return stream(indexName, queryBuilder, sourceFilter, decoder(clazz));
+    }
+
+    private <T> Stream<T> stream(String indexName, QueryBuilder queryBuilder, SourceFilter sourceFilter,
+                                 Function<SearchHit, T> mapper) {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+
+        ElasticsearchProperties.Scroll scroll = properties.getScroll();
+        try {
+            SearchRequest searchRequest = new SearchRequest(indexName);
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+            searchSourceBuilder.query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder);
+            searchSourceBuilder.size(scroll.getSize());
+            // 不需要排序时按_doc排序，scroll效率最高
+            searchSourceBuilder.sort(FieldSortBuilder.DOC_FIELD_NAME, SortOrder.ASC);
+            sourceFilter(searchSourceBuilder, sourceFilter);
+            searchRequest.source(searchSourceBuilder);
+
+            ElasticsearchScrollIterator<T> iterator = new ElasticsearchScrollIterator<>(client, searchRequest,
+                    TimeValue.timeValueSeconds(scroll.getKeepAlive()), mapper);
+            return iterator.stream();
         } catch (ElasticsearchException e) {
             if (e.status() == RestStatus.NOT_FOUND) {
                 throw new RuntimeException("[Elasticsearch]Index does not exist", e);
@@ -1096,8 +3007,312 @@ public class ElasticsearchTemplate implements ElasticsearchOperations {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+    }
+
+    /**
+     * 切片并行导出全部匹配的文档，切片在模板内置的线程池中执行，切片数超过scroll.exportThreads时排队执行。
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时导出全部文档；
+     * @param slices       切片数，建议等于索引的主分片数；
+     * @param consumer     文档处理，多个切片线程并发调用，必须线程安全；
+     * @return 导出句柄，可以查询每个切片的进度、等待完成或取消。
+     * @throws Exception
+     */
+    @Override
+    public ElasticsearchExport<Map<String, Object>> export(String indexName, QueryBuilder queryBuilder, int slices,
+                                                           Consumer<Map<String, Object>> consumer) throws Exception {
+        return export(indexName, queryBuilder, slices, consumer, exportExecutor);
+    }
+
+    /**
+     * 切片并行导出全部匹配的文档：打开slices个切片scroll（slice.id/slice.max），在指定线程池中并行读取，
+     * 导出速度随分片数扩展，而不是受限于单个http连接。
+     * 控制台查询（其中一个切片）：
+     * GET posts/_search?scroll=1m
+     * {"slice":{"id":0,"max":4},"query":{"match_all":{}},"sort":["_doc"]}
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时导出全部文档；
+     * @param slices       切片数，建议等于索引的主分片数；
+     * @param consumer     文档处理，多个切片线程并发调用，必须线程安全；
+     * @param executor     执行切片的线程池，并发数不足时切片会排队执行；
+     * @return 导出句柄，可以查询每个切片的进度、等待完成或取消。
+     * @throws Exception
+     */
+    @Override
+    public ElasticsearchExport<Map<String, Object>> export(String indexName, QueryBuilder queryBuilder, int slices,
+                                                           Consumer<Map<String, Object>> consumer, Executor executor) throws Exception {
+        return export(indexName, queryBuilder, null, slices, consumer, executor);
+    }
+
+    /**
+     * 切片并行导出全部匹配的文档，只返回指定的字段
+     *
+     * @param indexName    索引；
+     * @param queryBuilder 查询条件，为空时导出全部文档；
+     * @param sourceFilter 返回字段，为空时返回全部字段；
+     * @param slices       切片数，建议等于索引的主分片数；
+     * @param consumer     文档处理，多个切片线程并发调用，必须线程安全；
+     * @param executor     执行切片的线程池，并发数不足时切片会排队执行；
+     * @return 导出句柄，可以查询每个切片的进度、等待完成或取消。
+     * @throws Exception
+     */
+    @Override
+    public ElasticsearchExport<Map<String, Object>> export(String indexName, QueryBuilder queryBuilder, SourceFilter sourceFilter,
+                                                           int slices, Consumer<Map<String, Object>> consumer,
+                                                           Executor executor) throws Exception {
+        Assert.hasText(indexName, "The indexName can't be empty.");
+        Assert.isTrue(slices > 0, "The slices must be greater than 0.");
+        Assert.notNull(consumer, "The consumer can't be null.");
+        Assert.notNull(executor, "The executor can't be null.");
+
+        ElasticsearchProperties.Scroll scroll = properties.getScroll();
+        List<SearchRequest> requests = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+            searchSourceBuilder.query(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder);
+            searchSourceBuilder.size(scroll.getSize());
+            searchSourceBuilder.sort(FieldSortBuilder.DOC_FIELD_NAME, SortOrder.ASC);
+            // 切片数为1时不需要切片
+            if (slices > 1) {
+                searchSourceBuilder.slice(new SliceBuilder(i, slices));
+            }
+            sourceFilter(searchSourceBuilder, sourceFilter);
+            requests.add(new SearchRequest(indexName).source(searchSourceBuilder));
+        }
+
+        logger.info("[ElasticsearchExport]开始导出索引:{}，切片数:{}", indexName, slices);
+        return new ElasticsearchExport<>(client, indexName, requests, TimeValue.timeValueSeconds(scroll.getKeepAlive()),
+                this::hitAsMap, consumer, executor);
+    }
+
+    /**
+     * 将排序值编码为游标：json数组再做url安全的base64编码，调用方不需要关心其内容。
+     */
+    static String encodeCursor(Object[] sortValues) {
+        String json = JSON.toJSONString(sortValues);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 将游标还原为search_after的排序值
+     */
+    static Object[] decodeCursor(String cursor) {
+        JSONArray sortValues;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            sortValues = JSON.parseArray(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("The cursor is invalid: " + cursor, e);
+        }
+
+        Object[] values = new Object[sortValues.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = sortValues.get(i);
+            // fastjson将小数解析为BigDecimal，search_after只接受基本类型
+            values[i] = value instanceof BigDecimal ? ((BigDecimal) value).doubleValue() : value;
+        }
+        return values;
+    }
+
+    /**
+     * 设置查询返回的_source字段及doc values字段
+     */
+    private void sourceFilter(SearchSourceBuilder searchSourceBuilder, SourceFilter sourceFilter) {
+        if (sourceFilter == null) {
+            return;
+        }
+        searchSourceBuilder.fetchSource(sourceFilter.toFetchSourceContext());
+        for (String docValueField : sourceFilter.getDocValueFields()) {
+            searchSourceBuilder.docValueField(docValueField);
+        }
+    }
+
+    /**
+     * 将查询结果转换为map：_source字段、_id，以及doc values字段（单值字段取第一个值）。
+     * doc values字段与_source字段同名时保留_source中的原始值。
+     */
+    private Map<String, Object> hitAsMap(SearchHit hit) {
+        Map<String, Object> sourceAsMap;
+        if (!hit.hasSource()) {
+            sourceAsMap = new HashMap<>();
+        } else if (searchCache.isEnabled()) {
+            // 缓存的查询结果会被多次转换，每次从_source字节解析新的Map，不修改SearchHit内部缓存的Map
+            sourceAsMap = XContentHelper.convertToMap(hit.getSourceRef(), false, XContentType.JSON).v2();
+        } else {
+            sourceAsMap = hit.getSourceAsMap();
+        }
+        sourceAsMap.put("_id", hit.getId());
+        for (DocumentField field : hit.getFields().values()) {
+            List<Object> values = field.getValues();
+            sourceAsMap.putIfAbsent(field.getName(), values.size() == 1 ? values.get(0) : new ArrayList<>(values));
+        }
+        return sourceAsMap;
+    }
+
+    /**
+     * 将分桶聚合的桶序列化为json数组，子聚合的key带类型前缀，例如："avg#average_age"
+     */
+    private String bucketsJson(Aggregation aggregation) throws IOException {
+        if (!(aggregation instanceof MultiBucketsAggregation)) {
+            throw new RuntimeException("Invalid aggregate query.");
+        }
+        XContentBuilder builder = XContentFactory.jsonBuilder().startArray();
+        for (MultiBucketsAggregation.Bucket bucket : ((MultiBucketsAggregation) aggregation).getBuckets()) {
+            bucket.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        }
+        return Strings.toString(builder.endArray());
+    }
+
+    /**
+     * 将查询结果的_source字节直接解码为指定类型
+     */
+    private <T> Function<SearchHit, T> decoder(Class<T> clazz) {
+        return hit -> {
+            try {
+                return documentCodec.decode(hit.getId(), hit.getSourceRef(), clazz);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException("[Elasticsearch]Failed to decode document: " + hit.getId(), e);
+            }
+        };
+    }
+
+    /**
+     * 执行单文档get请求：索引开启近端缓存时先查缓存；开启读请求合并时与其他线程的请求合并为一次_mget提交，否则直接提交。
+     * 只有返回完整_source、不指定路由的请求使用缓存。
+     */
+    private GetResponse get(GetRequest request) throws Exception {
+        boolean cacheable = nearCache.isEnabled(request.index()) && request.fetchSourceContext() == null
+                && request.storedFields() == null && request.routing() == null;
+        if (cacheable) {
+            GetResponse cached = nearCache.get(request.index(), request.type(), request.id());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        GetResponse response;
+        if (readBatcher != null) {
+            response = readBatcher.execute(request);
+        } else {
+            response = client.get(request, RequestOptions.DEFAULT);
+        }
+        if (cacheable) {
+            nearCache.put(response);
+        }
+        return response;
+    }
+
+    /**
+     * 执行查询请求：开启查询结果缓存时，相同的查询在索引没有写入期间直接返回缓存的结果。
+     */
+    private SearchResponse search(SearchRequest request) throws Exception {
+        return searchCache.search(request, () -> client.search(request, RequestOptions.DEFAULT));
+    }
+
+    /**
+     * 执行单文档索引请求：开启写请求合并时与其他线程的请求合并为一次_bulk提交，否则直接提交。
+     */
+    private IndexResponse index(IndexRequest request) throws Exception {
+        if (writeBatcher != null) {
+            return writeBatcher.execute(request);
+        }
+        return client.index(request, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * 执行单次更新请求，不预先查询文档是否存在。
+     */
+    private boolean update(UpdateRequest updateRequest, Object mapping) {
+        boolean result = false;
+
+        UpdateResponse updateResponse = null;
+        try {
+            updateResponse = client.update(updateRequest, RequestOptions.DEFAULT);
+
+            if (updateResponse.getResult() == DocWriteResponse.Result.CREATED) {
+                logger.info("{}{} 创建内容：{}", "[ElasticsearchUpdate]", updateResponse.getResult().toString(), mapping);
+                result = true;
+            } else if (updateResponse.getResult() == DocWriteResponse.Result.UPDATED) {
+                logger.info("{}{} 更新内容：{}", "[ElasticsearchUpdate]", updateResponse.getResult().toString(), mapping);
+                result = true;
+            } else if (updateResponse.getResult() == DocWriteResponse.Result.NOOP) {
+                logger.warn("提交的内容相同，ES取消操作。");
+            }
+        } catch (ElasticsearchException e) {
+            if (e.status() == RestStatus.CONFLICT) {
+                throw new RuntimeException("[Elasticsearch]The document has been modified, version conflict.", e);
+            } else if (e.status() == RestStatus.NOT_FOUND) {
+                throw new RuntimeException("[Elasticsearch]The document or index does not exist.", e);
+            } else if (e.status() == RestStatus.BAD_REQUEST) {
+                throw new RuntimeException("[Elasticsearch]The requested parameter is invalid.", e);
+            } else {
+                throw new RuntimeException("[Elasticsearch]The operation failure.", e);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            // 请求异常时服务端仍可能已写入（例如客户端超时），同样使缓存失效
+            invalidate(updateRequest.index(), updateRequest.type(), updateRequest.id(),
+                    updateResponse == null ? -1 : updateResponse.getVersion());
+        }
+
+        return result;
+    }
+
+    /**
+     * 设置索引请求的文档内容，mapping可以是map/String(json)/XContentBuilder类型。
+     */
+    private void source(IndexRequest request, Object mapping) {
+        if (mapping instanceof String) {
+            request.source(String.valueOf(mapping), XContentType.JSON);
+        } else if (mapping instanceof Map) {
+            request.source((Map) mapping);
+        } else if (mapping instanceof XContentBuilder) {
+            request.source((XContentBuilder) mapping);
+        } else {
+            throw new RuntimeException("mapping参数类型无效。");
+        }
+    }
+
+    /**
+     * 设置更新请求的文档内容，mapping可以是map/String(json)/XContentBuilder类型。
+     */
+    private void doc(UpdateRequest request, Object mapping) {
+        if (mapping instanceof String) {
+            request.doc(String.valueOf(mapping), XContentType.JSON);
+        } else if (mapping instanceof Map) {
+            request.doc((Map) mapping);
+        } else if (mapping instanceof XContentBuilder) {
+            request.doc((XContentBuilder) mapping);
+        } else {
+            throw new RuntimeException("mapping参数类型无效。");
+        }
+    }
+
+    /**
+     * 设置文档不存在时创建的文档内容，mapping可以是map/String(json)/XContentBuilder类型。
+     */
+    private void upsertDoc(UpdateRequest request, Object mapping) {
+        if (mapping instanceof String) {
+            request.upsert(String.valueOf(mapping), XContentType.JSON);
+        } else if (mapping instanceof Map) {
+            request.upsert((Map) mapping);
+        } else if (mapping instanceof XContentBuilder) {
+            request.upsert((XContentBuilder) mapping);
+        } else {
+            throw new RuntimeException("mapping参数类型无效。");
+        }
+    }
 
-        return mapList;
+    /**
+     * 引用stored script，stored script不能指定lang
+     */
+    private Script storedScript(String scriptId, Map<String, Object> params) {
+        return new Script(ScriptType.STORED, null, scriptId, params == null ? Collections.emptyMap() : params);
     }
 
 }
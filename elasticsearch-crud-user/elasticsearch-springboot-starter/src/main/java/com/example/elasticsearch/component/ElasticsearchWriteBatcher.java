@@ -0,0 +1,79 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchWriteBatcher
+ * @ProjectName elasticsearch-crud
+ * @Description: 单文档写请求合并器：多个线程并发提交的单文档写请求，在时间窗口内或达到数量上限时合并为一次_bulk请求，
+ * 每个调用方仍然得到自己文档的响应或异常。
+ * @date 2026/10/17 11:05
+ */
+public class ElasticsearchWriteBatcher extends ElasticsearchBatcher<DocWriteRequest<?>, DocWriteResponse> {
+    private final RestHighLevelClient client;
+
+    /**
+     * @param client  es客户端；
+     * @param window  合并等待时间窗口（毫秒）；
+     * @param maxSize 每次合并的最大文档数；
+     */
+    public ElasticsearchWriteBatcher(RestHighLevelClient client, long window, int maxSize) {
+        super("write", window, maxSize);
+        this.client = client;
+        start();
+    }
+
+    /**
+     * 提交单文档写请求并等待所在批次执行完成。
+     *
+     * @param request 写请求，IndexRequest/UpdateRequest/DeleteRequest；
+     * @return 该文档的响应；
+     * @throws Exception 文档失败时抛出ElasticsearchStatusException，status与单文档请求一致。
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DocWriteResponse> T execute(DocWriteRequest<?> request) throws Exception {
+        return (T) submit(request);
+    }
+
+    @Override
+    protected void process(List<Pending<DocWriteRequest<?>, DocWriteResponse>> batch) {
+        BulkRequest bulkRequest = new BulkRequest();
+        for (Pending<DocWriteRequest<?>, DocWriteResponse> write : batch) {
+            bulkRequest.add(write.request);
+        }
+
+        BulkResponse bulkResponse;
+        try {
+            bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            for (Pending<DocWriteRequest<?>, DocWriteResponse> write : batch) {
+                write.future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        // 响应条目与请求顺序一致
+        BulkItemResponse[] items = bulkResponse.getItems();
+        for (int i = 0; i < items.length; i++) {
+            BulkItemResponse item = items[i];
+            if (item.isFailed()) {
+                BulkItemResponse.Failure failure = item.getFailure();
+                batch.get(i).future.completeExceptionally(
+                        new ElasticsearchStatusException(failure.getMessage(), failure.getStatus(), failure.getCause()));
+            } else {
+                batch.get(i).future.complete(item.getResponse());
+            }
+        }
+        logger.debug("[WriteBatcher]合并提交文档数:{}，耗时:{}", items.length, bulkResponse.getTook());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.elasticsearch.component;
+
+import com.alibaba.fastjson.JSON;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author jackie wang
+ * @Title: FastJsonDocumentCodec
+ * @ProjectName elasticsearch-crud
+ * @Description: 基于fastjson的文档解码器：直接从_source字节反序列化为目标类型；
+ * 目标类型有String类型的id属性且_source中没有id时，设置为文档id。
+ * @date 2026/10/17 19:50
+ */
+public class FastJsonDocumentCodec implements DocumentCodec {
+    private final static String ID_PROPERTY = "id";
+
+    @Override
+    public <T> T decode(String id, BytesReference source, Class<T> clazz) throws Exception {
+        if (source == null) {
+            return null;
+        }
+
+        // 数组实现的BytesReference不需要复制
+        BytesRef bytesRef = source.toBytesRef();
+        T document = JSON.parseObject(bytesRef.bytes, bytesRef.offset, bytesRef.length, StandardCharsets.UTF_8, clazz);
+        if (document != null && id != null) {
+            setId(document, id);
+        }
+        return document;
+    }
+
+    private void setId(Object document, String id) throws Exception {
+        // BeanUtils缓存了类的属性信息，不会每次反射解析
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(document.getClass(), ID_PROPERTY);
+        if (descriptor == null || descriptor.getPropertyType() != String.class) {
+            return;
+        }
+        Method readMethod = descriptor.getReadMethod();
+        Method writeMethod = descriptor.getWriteMethod();
+        if (readMethod != null && writeMethod != null && readMethod.invoke(document) == null) {
+            writeMethod.invoke(document, id);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author jackie wang
+ * @Title: HitView
+ * @ProjectName elasticsearch-crud
+ * @Description: 查询结果的延迟解析视图：持有_source的原始字节，访问字段时才解析该字段，
+ * 解析时跳过其他字段的内容，不会把整个文档转换为Map。适合只读取大文档中少数字段的列表查询。
+ * 预先声明的字段在第一次访问任一字段时一次扫描全部解析，未声明的字段每次首次访问扫描一次。
+ * @date 2026/10/17 20:30
+ */
+public class HitView {
+    private final String id;
+    private final float score;
+    private final BytesReference source;
+    /** 预先声明、尚未解析的字段 */
+    private final Set<String> declared;
+    /** 已解析的字段 */
+    private Map<String, Object> fields;
+
+    public HitView(String id, float score, BytesReference source) {
+        this(id, score, source, Collections.emptyList());
+    }
+
+    /**
+     * @param paths 将要访问的字段，第一次访问时在同一次扫描中解析；
+     */
+    public HitView(String id, float score, BytesReference source, Collection<String> paths) {
+        this.id = id;
+        this.score = score;
+        this.source = source;
+        this.declared = new HashSet<>(paths);
+    }
+
+    public HitView(SearchHit hit) {
+        this(hit.getId(), hit.getScore(), hit.getSourceRef());
+    }
+
+    public HitView(SearchHit hit, Collection<String> paths) {
+        this(hit.getId(), hit.getScore(), hit.getSourceRef(), paths);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    /**
+     * _source的原始字节
+     */
+    public BytesReference getSource() {
+        return source;
+    }
+
+    /**
+     * 获取字段值，与预先声明且尚未解析的字段一起解析
+     *
+     * @param path 字段名，嵌套对象的字段用“.”分隔，例如：user.name；
+     * @return 字段不存在时返回null；对象返回Map，数组返回List。
+     */
+    public Object get(String path) {
+        if (fields == null) {
+            fields = new HashMap<>();
+        } else if (fields.containsKey(path)) {
+            return fields.get(path);
+        }
+
+        Set<String> pending = new HashSet<>(declared);
+        pending.add(path);
+        declared.clear();
+        resolve(pending);
+        return fields.get(path);
+    }
+
+    /**
+     * 在一次扫描中解析多个字段，之后通过get读取
+     *
+     * @param paths 字段名，嵌套对象的字段用“.”分隔；
+     * @return
+     */
+    public HitView fetch(String... paths) {
+        if (fields == null) {
+            fields = new HashMap<>();
+        }
+        Set<String> pending = new HashSet<>(declared);
+        pending.addAll(Arrays.asList(paths));
+        declared.clear();
+        pending.removeAll(fields.keySet());
+        resolve(pending);
+        return this;
+    }
+
+    public String getString(String path) {
+        Object value = get(path);
+        return value == null ? null : value.toString();
+    }
+
+    public Long getLong(String path) {
+        Object value = get(path);
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Number ? ((Number) value).longValue() : Long.valueOf(value.toString());
+    }
+
+    public Double getDouble(String path) {
+        Object value = get(path);
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.valueOf(value.toString());
+    }
+
+    public Boolean getBoolean(String path) {
+        Object value = get(path);
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Boolean ? (Boolean) value : Boolean.valueOf(value.toString());
+    }
+
+    /**
+     * 解析整个文档
+     */
+    public Map<String, Object> toMap() {
+        if (source == null) {
+            return Collections.emptyMap();
+        }
+        return XContentHelper.convertToMap(source, false, XContentType.JSON).v2();
+    }
+
+    /**
+     * 一次扫描解析全部字段，未找到的字段记为null
+     */
+    private void resolve(Set<String> pending) {
+        if (source != null && !pending.isEmpty()) {
+            try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                    LoggingDeprecationHandler.INSTANCE, source, XContentType.JSON)) {
+                if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                    find(parser, "", pending);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("[Elasticsearch]Failed to parse the fields: " + pending, e);
+            }
+        }
+        for (String path : pending) {
+            fields.put(path, null);
+        }
+    }
+
+    /**
+     * 在当前对象中查找字段，只进入包含待解析字段的对象，其他字段整体跳过；全部找到后停止扫描。
+     *
+     * @param prefix  当前对象的路径前缀，顶层为空字符串；
+     * @param pending 待解析的完整路径，找到后移除；
+     */
+    private void find(XContentParser parser, String prefix, Set<String> pending) throws IOException {
+        XContentParser.Token token;
+        while (!pending.isEmpty() && (token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            String name = prefix + parser.currentName();
+            token = parser.nextToken();
+            List<String> children = token == XContentParser.Token.START_OBJECT ? children(pending, name) : Collections.emptyList();
+            if (pending.remove(name)) {
+                Object value = value(parser, token);
+                fields.put(name, value);
+                // 同时请求了对象及其子字段时，子字段从已解析的对象中读取
+                for (String child : children) {
+                    Object childValue = lookup(value, child.substring(name.length() + 1));
+                    if (childValue != null) {
+                        fields.put(child, childValue);
+                        pending.remove(child);
+                    }
+                }
+            } else if (!children.isEmpty()) {
+                find(parser, name + ".", pending);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static List<String> children(Set<String> pending, String name) {
+        List<String> children = new ArrayList<>();
+        for (String path : pending) {
+            if (path.length() > name.length() && path.startsWith(name) && path.charAt(name.length()) == '.') {
+                children.add(path);
+            }
+        }
+        return children;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object lookup(Object value, String path) {
+        for (String name : path.split("\\.")) {
+            if (!(value instanceof Map)) {
+                return null;
+            }
+            value = ((Map<String, Object>) value).get(name);
+        }
+        return value;
+    }
+
+    private Object value(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_NULL:
+                return null;
+            default:
+                return parser.objectText();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HitView{" +
+                "id='" + id + '\'' +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: MultiSearchItem
+ * @ProjectName elasticsearch-crud
+ * @Description: msearch中的一个查询：索引、查询条件、分页、排序及聚合。
+ * @date 2026/10/17 18:50
+ */
+public class MultiSearchItem {
+    /** 索引 */
+    private String indexName;
+    /** 查询条件，为空时查询全部文档 */
+    private QueryBuilder queryBuilder;
+    /** 页显示大小，默认10；只需要聚合结果时设置为0 */
+    private Integer pageSize = 10;
+    /** 当前页，默认1 */
+    private Integer pageNow = 1;
+    /** 排序字段，为空时按分数(_score)降序排序 */
+    private String sortFieldName;
+    /** 返回字段，为空时返回全部字段 */
+    private SourceFilter sourceFilter;
+    /** 聚合 */
+    private List<AggregationBuilder> aggregations = new ArrayList<>();
+
+    public MultiSearchItem() {
+    }
+
+    public MultiSearchItem(String indexName, QueryBuilder queryBuilder) {
+        this.indexName = indexName;
+        this.queryBuilder = queryBuilder;
+    }
+
+    public MultiSearchItem(String indexName, Integer pageSize, Integer pageNow, String sortFieldName, QueryBuilder queryBuilder) {
+        this.indexName = indexName;
+        this.pageSize = pageSize;
+        this.pageNow = pageNow;
+        this.sortFieldName = sortFieldName;
+        this.queryBuilder = queryBuilder;
+    }
+
+    /**
+     * 设置返回字段
+     */
+    public MultiSearchItem sourceFilter(SourceFilter sourceFilter) {
+        this.sourceFilter = sourceFilter;
+        return this;
+    }
+
+    /**
+     * 添加聚合
+     */
+    public MultiSearchItem aggregation(AggregationBuilder aggregationBuilder) {
+        this.aggregations.add(aggregationBuilder);
+        return this;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public QueryBuilder getQueryBuilder() {
+        return queryBuilder;
+    }
+
+    public void setQueryBuilder(QueryBuilder queryBuilder) {
+        this.queryBuilder = queryBuilder;
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public Integer getPageNow() {
+        return pageNow;
+    }
+
+    public void setPageNow(Integer pageNow) {
+        this.pageNow = pageNow;
+    }
+
+    public String getSortFieldName() {
+        return sortFieldName;
+    }
+
+    public void setSortFieldName(String sortFieldName) {
+        this.sortFieldName = sortFieldName;
+    }
+
+    public SourceFilter getSourceFilter() {
+        return sourceFilter;
+    }
+
+    public void setSourceFilter(SourceFilter sourceFilter) {
+        this.sourceFilter = sourceFilter;
+    }
+
+    public List<AggregationBuilder> getAggregations() {
+        return aggregations;
+    }
+
+    public void setAggregations(List<AggregationBuilder> aggregations) {
+        this.aggregations = aggregations;
+    }
+}
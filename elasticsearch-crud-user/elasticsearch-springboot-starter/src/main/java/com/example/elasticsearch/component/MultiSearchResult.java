@@ -0,0 +1,96 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: MultiSearchResult
+ * @ProjectName elasticsearch-crud
+ * @Description: msearch中一个查询的结果，查询失败时只有该查询的failure不为空，不影响其他查询。
+ * @date 2026/10/17 18:50
+ */
+public class MultiSearchResult {
+    /** 当前页文档，每个文档包含_id */
+    private List<Map<String, Object>> documents = Collections.emptyList();
+    /** 匹配的文档总数 */
+    private long totalHits;
+    /** 聚合结果 */
+    private Aggregations aggregations;
+    /** 耗时（毫秒） */
+    private long took;
+    /** 失败原因，成功时为空 */
+    private Exception failure;
+
+    public MultiSearchResult() {
+    }
+
+    public MultiSearchResult(List<Map<String, Object>> documents, long totalHits, Aggregations aggregations, long took) {
+        this.documents = documents;
+        this.totalHits = totalHits;
+        this.aggregations = aggregations;
+        this.took = took;
+    }
+
+    public MultiSearchResult(Exception failure) {
+        this.failure = failure;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * 按名称获取聚合结果，例如：Terms byCompany = result.getAggregation("by_company");
+     *
+     * @param name 聚合名称；
+     * @return 聚合不存在时返回null。
+     */
+    public <A extends Aggregation> A getAggregation(String name) {
+        return aggregations == null ? null : aggregations.get(name);
+    }
+
+    public List<Map<String, Object>> getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(List<Map<String, Object>> documents) {
+        this.documents = documents;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(long totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    public Aggregations getAggregations() {
+        return aggregations;
+    }
+
+    public void setAggregations(Aggregations aggregations) {
+        this.aggregations = aggregations;
+    }
+
+    public long getTook() {
+        return took;
+    }
+
+    public void setTook(long took) {
+        this.took = took;
+    }
+
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public void setFailure(Exception failure) {
+        this.failure = failure;
+    }
+}
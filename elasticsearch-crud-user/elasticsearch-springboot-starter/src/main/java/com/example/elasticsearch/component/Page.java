@@ -0,0 +1,133 @@
+package com.example.elasticsearch.component;
+
+import java.util.List;
+
+/**
+ * @author jackie wang
+ * @Title: Page
+ * @ProjectName elasticsearch-crud
+ * @Description: 分页查询结果：当前页文档、匹配的文档总数及总数是否精确、查询耗时。
+ * 总数的统计方式由track_total_hits控制：不需要展示总数的页面关闭统计，可以减少集群的计算。
+ * @date 2026/10/17 23:20
+ */
+public class Page<T> {
+    /** 不统计总数，getTotal()返回-1 */
+    public final static int TRACK_TOTAL_HITS_DISABLED = -1;
+    /** 精确统计总数 */
+    public final static int TRACK_TOTAL_HITS_ACCURATE = Integer.MAX_VALUE;
+
+    /** 总数精确 */
+    public final static String RELATION_EQ = "eq";
+    /** 总数达到统计上限，实际总数大于等于total */
+    public final static String RELATION_GTE = "gte";
+
+    /** 当前页文档 */
+    private List<T> content;
+    /** 匹配的文档总数，未统计时为-1 */
+    private long total = -1;
+    /** 总数关系：eq/gte，未统计时为空 */
+    private String relation;
+    /** 耗时（毫秒） */
+    private long took;
+    private int pageNow;
+    private int pageSize;
+
+    public Page() {
+    }
+
+    public Page(List<T> content, long total, String relation, long took, int pageNow, int pageSize) {
+        this.content = content;
+        this.total = total;
+        this.relation = relation;
+        this.took = took;
+        this.pageNow = pageNow;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 总数是否精确
+     */
+    public boolean isTotalExact() {
+        return RELATION_EQ.equals(relation);
+    }
+
+    /**
+     * 是否有下一页：未统计总数时按当前页是否满页判断
+     */
+    public boolean hasNext() {
+        if (total < 0) {
+            return content != null && content.size() >= pageSize;
+        }
+        return (long) pageNow * pageSize < total;
+    }
+
+    /**
+     * 总页数，未统计总数时返回-1
+     */
+    public long getTotalPages() {
+        if (total < 0 || pageSize <= 0) {
+            return -1;
+        }
+        return (total + pageSize - 1) / pageSize;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public String getRelation() {
+        return relation;
+    }
+
+    public void setRelation(String relation) {
+        this.relation = relation;
+    }
+
+    public long getTook() {
+        return took;
+    }
+
+    public void setTook(long took) {
+        this.took = took;
+    }
+
+    public int getPageNow() {
+        return pageNow;
+    }
+
+    public void setPageNow(int pageNow) {
+        this.pageNow = pageNow;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "content=" + content +
+                ", total=" + total +
+                ", relation='" + relation + '\'' +
+                ", took=" + took +
+                ", pageNow=" + pageNow +
+                ", pageSize=" + pageSize +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.elasticsearch.component;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author jackie wang
+ * @Title: PreparedQuery
+ * @ProjectName elasticsearch-crud
+ * @Description: 预编译查询：查询结构以mustache search template注册为stored script，es只编译一次，
+ * 每次执行只发送模板id和参数，请求大小与参数有关，与查询结构的复杂度无关。
+ * 查询中的变量写为"{{name}}"，例如：QueryBuilders.termQuery("user", "{{user}}")。
+ * from/size等数值参数不能通过SearchSourceBuilder写为变量，需要使用json模板，例如：{"from":{{from}},"size":{{size}},...}。
+ * @date 2026/10/17 23:50
+ */
+public class PreparedQuery {
+    /** 变量：{{name}}或{{{name}}}，不包括{{#section}}、{{/section}}等 */
+    private final static Pattern PARAMETER = Pattern.compile("\\{\\{\\{?\\s*([^#/^!>{}\\s][^{}\\s]*)\\s*}?}}");
+
+    /** 模板id */
+    private final String templateId;
+    /** mustache模板内容 */
+    private final String source;
+    /** 模板中的变量名 */
+    private final Set<String> parameters;
+
+    public PreparedQuery(String templateId, String source) {
+        this.templateId = templateId;
+        this.source = source;
+
+        Set<String> parameters = new LinkedHashSet<>();
+        Matcher matcher = PARAMETER.matcher(source);
+        while (matcher.find()) {
+            parameters.add(matcher.group(1));
+        }
+        this.parameters = Collections.unmodifiableSet(parameters);
+    }
+
+    /**
+     * 检查参数是否完整：mustache将缺少的变量渲染为空字符串，查询条件会静默变化，这里在发送前直接报错。
+     */
+    public void validate(Map<String, Object> params) {
+        for (String parameter : parameters) {
+            // 变量可以是嵌套对象的字段，例如：{{range.gte}}，只检查第一层
+            String name = parameter.contains(".") ? parameter.substring(0, parameter.indexOf('.')) : parameter;
+            if (params == null || !params.containsKey(name)) {
+                throw new IllegalArgumentException("The parameter " + parameter + " of query template " + templateId + " is missing.");
+            }
+        }
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Set<String> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedQuery{" +
+                "templateId='" + templateId + '\'' +
+                ", parameters=" + parameters +
+                '}';
+    }
+}
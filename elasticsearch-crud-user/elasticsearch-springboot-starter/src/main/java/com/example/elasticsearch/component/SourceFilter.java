@@ -0,0 +1,94 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+/**
+ * @author jackie wang
+ * @Title: SourceFilter
+ * @ProjectName elasticsearch-crud
+ * @Description: 查询返回字段：_source包含/排除的字段（支持通配符），以及从doc values读取的字段。
+ * 列表查询只返回需要展示的字段，避免传输和解析大文本字段。例如：
+ * SourceFilter.include("user", "postDate").exclude("message").docValueFields("likes");
+ * @date 2026/10/17 19:20
+ */
+public class SourceFilter {
+    /** _source中包含的字段，为空时包含全部字段 */
+    private String[] includes = Strings.EMPTY_ARRAY;
+    /** _source中排除的字段 */
+    private String[] excludes = Strings.EMPTY_ARRAY;
+    /** 是否返回_source，只需要docValueFields时可以关闭 */
+    private boolean fetchSource = true;
+    /** 从doc values读取的字段，以字段名为key放入结果，与_source字段同名时保留_source中的值；get/multiGet不支持，指定时抛出IllegalArgumentException */
+    private String[] docValueFields = Strings.EMPTY_ARRAY;
+
+    public SourceFilter() {
+    }
+
+    public SourceFilter(String[] includes, String[] excludes) {
+        includes(includes);
+        excludes(excludes);
+    }
+
+    /**
+     * 只返回指定的_source字段
+     */
+    public static SourceFilter include(String... includes) {
+        return new SourceFilter().includes(includes);
+    }
+
+    /**
+     * 不返回_source，只返回指定的doc values字段
+     */
+    public static SourceFilter docValuesOnly(String... docValueFields) {
+        SourceFilter sourceFilter = new SourceFilter().docValueFields(docValueFields);
+        sourceFilter.fetchSource = false;
+        return sourceFilter;
+    }
+
+    public SourceFilter includes(String... includes) {
+        this.includes = includes == null ? Strings.EMPTY_ARRAY : includes;
+        return this;
+    }
+
+    public SourceFilter exclude(String... excludes) {
+        return excludes(excludes);
+    }
+
+    public SourceFilter excludes(String... excludes) {
+        this.excludes = excludes == null ? Strings.EMPTY_ARRAY : excludes;
+        return this;
+    }
+
+    public SourceFilter docValueFields(String... docValueFields) {
+        this.docValueFields = docValueFields == null ? Strings.EMPTY_ARRAY : docValueFields;
+        return this;
+    }
+
+    /**
+     * 转换为get/search请求的_source参数
+     */
+    public FetchSourceContext toFetchSourceContext() {
+        return new FetchSourceContext(fetchSource, includes, excludes);
+    }
+
+    public String[] getIncludes() {
+        return includes;
+    }
+
+    public String[] getExcludes() {
+        return excludes;
+    }
+
+    public boolean isFetchSource() {
+        return fetchSource;
+    }
+
+    public void setFetchSource(boolean fetchSource) {
+        this.fetchSource = fetchSource;
+    }
+
+    public String[] getDocValueFields() {
+        return docValueFields;
+    }
+}
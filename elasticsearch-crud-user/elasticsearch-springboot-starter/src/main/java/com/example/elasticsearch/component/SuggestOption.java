@@ -0,0 +1,63 @@
+package com.example.elasticsearch.component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author jackie wang
+ * @Title: SuggestOption
+ * @ProjectName elasticsearch-crud
+ * @Description: 搜索建议的一个候选项：建议文本、分数；completion建议还包含文档id及文档字段（payload），
+ * term建议包含候选词的文档频率。
+ * @date 2026/10/17 23:40
+ */
+public class SuggestOption {
+    /** 建议文本 */
+    private final String text;
+    private final float score;
+    /** 文档id，term建议为空 */
+    private final String id;
+    /** 文档字段，term建议为空Map */
+    private final Map<String, Object> payload;
+    /** 候选词的文档频率，completion建议为0 */
+    private final int freq;
+
+    public SuggestOption(String text, float score, String id, Map<String, Object> payload, int freq) {
+        this.text = text;
+        this.score = score;
+        this.id = id;
+        this.payload = payload == null ? Collections.emptyMap() : Collections.unmodifiableMap(payload);
+        this.freq = freq;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Map<String, Object> getPayload() {
+        return payload;
+    }
+
+    public int getFreq() {
+        return freq;
+    }
+
+    @Override
+    public String toString() {
+        return "SuggestOption{" +
+                "text='" + text + '\'' +
+                ", score=" + score +
+                ", id='" + id + '\'' +
+                ", payload=" + payload +
+                ", freq=" + freq +
+                '}';
+    }
+}
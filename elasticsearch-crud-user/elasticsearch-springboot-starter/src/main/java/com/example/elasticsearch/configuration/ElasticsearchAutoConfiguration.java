@@ -1,17 +1,33 @@
 package com.example.elasticsearch.configuration;
 
+import com.example.elasticsearch.component.DocumentCodec;
+import com.example.elasticsearch.component.ElasticsearchAsyncWriter;
+import com.example.elasticsearch.component.ElasticsearchBulkListener;
+import com.example.elasticsearch.component.ElasticsearchNearCache;
+import com.example.elasticsearch.component.ElasticsearchReadBatcher;
+import com.example.elasticsearch.component.ElasticsearchSearchCache;
+import com.example.elasticsearch.component.ElasticsearchSuggestCache;
+import com.example.elasticsearch.component.ElasticsearchWriteBatcher;
+import com.example.elasticsearch.component.FastJsonDocumentCodec;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
+import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -69,6 +85,102 @@ public class ElasticsearchAutoConfiguration {
         return new RestHighLevelClient(builder);
     }
 
+    /**
+     * 批量写入处理器：按文档数量、请求大小、时间间隔自动提交_bulk请求，集群拒绝时按指数退避重试。
+     * @param client
+     * @return
+     */
+    @Bean
+    public BulkProcessor bulkProcessor(RestHighLevelClient client, ElasticsearchNearCache nearCache,
+                                       ElasticsearchSearchCache searchCache) {
+        ElasticsearchProperties.Bulk bulk = properties.getBulk();
+        return BulkProcessor.builder(
+                (request, bulkListener) -> client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
+                new ElasticsearchBulkListener(nearCache, searchCache))
+                .setBulkActions(bulk.getBulkActions())
+                .setBulkSize(new ByteSizeValue(bulk.getBulkSize(), ByteSizeUnit.MB))
+                .setFlushInterval(TimeValue.timeValueSeconds(bulk.getFlushInterval()))
+                .setConcurrentRequests(bulk.getConcurrentRequests())
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(
+                        TimeValue.timeValueMillis(bulk.getBackoffDelay()), bulk.getBackoffRetries()))
+                .build();
+    }
+
+    /**
+     * 文档解码器：默认使用fastjson，注册自定义的DocumentCodec bean时不生效
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public DocumentCodec documentCodec() {
+        return new FastJsonDocumentCodec();
+    }
+
+    /**
+     * 单文档写请求合并器：spring.elasticsearch.batch.enabled=true时开启
+     * @param client
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = PREFIX, value = "batch.enabled", havingValue = "true")
+    public ElasticsearchWriteBatcher elasticsearchWriteBatcher(RestHighLevelClient client) {
+        ElasticsearchProperties.Batch batch = properties.getBatch();
+        return new ElasticsearchWriteBatcher(client, batch.getWindow(), batch.getMaxSize());
+    }
+
+    /**
+     * 单文档读请求合并器：spring.elasticsearch.readBatch.enabled=true时开启
+     * @param client
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = PREFIX, value = "readBatch.enabled", havingValue = "true")
+    public ElasticsearchReadBatcher elasticsearchReadBatcher(RestHighLevelClient client) {
+        ElasticsearchProperties.Batch readBatch = properties.getReadBatch();
+        return new ElasticsearchReadBatcher(client, readBatch.getWindow(), readBatch.getMaxSize());
+    }
+
+    /**
+     * get近端缓存：只缓存spring.elasticsearch.nearCache下配置了的索引
+     * @return
+     */
+    @Bean
+    public ElasticsearchNearCache elasticsearchNearCache() {
+        return new ElasticsearchNearCache(properties.getNearCache());
+    }
+
+    /**
+     * 查询结果缓存：spring.elasticsearch.searchCache.enabled=true时开启
+     * @return
+     */
+    @Bean
+    public ElasticsearchSearchCache elasticsearchSearchCache() {
+        ElasticsearchProperties.SearchCache searchCache = properties.getSearchCache();
+        return new ElasticsearchSearchCache(searchCache.getEnabled(), searchCache.getMaxEntries(),
+                searchCache.getMaxSize(), searchCache.getTtl(), searchCache.getRefreshInterval());
+    }
+
+    /**
+     * 搜索建议热点前缀缓存
+     * @return
+     */
+    @Bean
+    public ElasticsearchSuggestCache elasticsearchSuggestCache() {
+        ElasticsearchProperties.Suggest suggest = properties.getSuggest();
+        return new ElasticsearchSuggestCache(suggest.getCacheSize(), suggest.getCacheTtl());
+    }
+
+    /**
+     * 异步写入队列：限制createAsync正在执行的请求数，队列满时按溢出策略处理
+     * @param client
+     * @return
+     */
+    @Bean
+    public ElasticsearchAsyncWriter elasticsearchAsyncWriter(RestHighLevelClient client) {
+        ElasticsearchProperties.Async async = properties.getAsync();
+        return new ElasticsearchAsyncWriter(client, async.getCapacity(), async.getMaxInFlight(), async.getOverflowPolicy());
+    }
+
     private HttpHost[] getHttpHost() {
         HttpHost[] httpHosts = new HttpHost[properties.getHostAndPortList().size()];
         // 获取es主机和端口列表，然后添加到httpHosts
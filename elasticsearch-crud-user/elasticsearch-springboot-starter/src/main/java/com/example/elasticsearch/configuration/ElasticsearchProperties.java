@@ -1,8 +1,11 @@
 package com.example.elasticsearch.configuration;
 
+import com.example.elasticsearch.component.ElasticsearchAsyncWriter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.example.elasticsearch.configuration.ElasticsearchProperties.PREFIX;
 
@@ -23,6 +26,26 @@ public class ElasticsearchProperties {
     private Boolean auth;
     private String username;
     private String password;
+    /** 批量写入（BulkProcessor）配置 */
+    private Bulk bulk = new Bulk();
+    /** 单文档写请求合并配置 */
+    private Batch batch = new Batch();
+    /** 异步写入队列配置 */
+    private Async async = new Async();
+    /** 启动时注册为stored script的painless脚本，key为脚本id，value为脚本内容 */
+    private Map<String, String> scripts = new LinkedHashMap<>();
+    /** updateByQuery/deleteByQuery/reindex的切片及批次配置 */
+    private ByQuery byQuery = new ByQuery();
+    /** 流式读取（scroll）配置 */
+    private Scroll scroll = new Scroll();
+    /** 单文档读请求（get）合并配置 */
+    private Batch readBatch = new Batch();
+    /** get近端缓存配置，key为索引，只缓存配置了的索引 */
+    private Map<String, NearCache> nearCache = new LinkedHashMap<>();
+    /** 查询结果缓存配置 */
+    private SearchCache searchCache = new SearchCache();
+    /** 搜索建议（输入联想）配置 */
+    private Suggest suggest = new Suggest();
 
     public List<String> getHostAndPortList() {
         return hostAndPortList;
@@ -55,4 +78,481 @@ public class ElasticsearchProperties {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public void setBulk(Bulk bulk) {
+        this.bulk = bulk;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public void setAsync(Async async) {
+        this.async = async;
+    }
+
+    public Map<String, String> getScripts() {
+        return scripts;
+    }
+
+    public void setScripts(Map<String, String> scripts) {
+        this.scripts = scripts;
+    }
+
+    public ByQuery getByQuery() {
+        return byQuery;
+    }
+
+    public void setByQuery(ByQuery byQuery) {
+        this.byQuery = byQuery;
+    }
+
+    public Scroll getScroll() {
+        return scroll;
+    }
+
+    public void setScroll(Scroll scroll) {
+        this.scroll = scroll;
+    }
+
+    public Batch getReadBatch() {
+        return readBatch;
+    }
+
+    public void setReadBatch(Batch readBatch) {
+        this.readBatch = readBatch;
+    }
+
+    public Map<String, NearCache> getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(Map<String, NearCache> nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public void setSearchCache(SearchCache searchCache) {
+        this.searchCache = searchCache;
+    }
+
+    public Suggest getSuggest() {
+        return suggest;
+    }
+
+    public void setSuggest(Suggest suggest) {
+        this.suggest = suggest;
+    }
+
+    /**
+     * 批量写入配置：BulkProcessor按文档数量、请求大小、时间间隔任一条件满足时提交一次_bulk请求。
+     */
+    public static class Bulk {
+        /** 每批次提交的文档数量，默认1000 */
+        private Integer bulkActions = 1000;
+        /** 每批次请求大小（MB），默认5MB */
+        private Long bulkSize = 5L;
+        /** 定时提交间隔（秒），默认5秒 */
+        private Long flushInterval = 5L;
+        /** 并发提交的批次数，0表示同步提交，默认1 */
+        private Integer concurrentRequests = 1;
+        /** 集群拒绝（EsRejectedExecutionException）时的重试次数，默认3 */
+        private Integer backoffRetries = 3;
+        /** 重试初始等待时间（毫秒），按指数递增，默认100毫秒 */
+        private Long backoffDelay = 100L;
+        /** 应用关闭时等待未完成批次提交的时间（秒），默认30秒 */
+        private Long awaitClose = 30L;
+
+        public Integer getBulkActions() {
+            return bulkActions;
+        }
+
+        public void setBulkActions(Integer bulkActions) {
+            this.bulkActions = bulkActions;
+        }
+
+        public Long getBulkSize() {
+            return bulkSize;
+        }
+
+        public void setBulkSize(Long bulkSize) {
+            this.bulkSize = bulkSize;
+        }
+
+        public Long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Integer getConcurrentRequests() {
+            return concurrentRequests;
+        }
+
+        public void setConcurrentRequests(Integer concurrentRequests) {
+            this.concurrentRequests = concurrentRequests;
+        }
+
+        public Integer getBackoffRetries() {
+            return backoffRetries;
+        }
+
+        public void setBackoffRetries(Integer backoffRetries) {
+            this.backoffRetries = backoffRetries;
+        }
+
+        public Long getBackoffDelay() {
+            return backoffDelay;
+        }
+
+        public void setBackoffDelay(Long backoffDelay) {
+            this.backoffDelay = backoffDelay;
+        }
+
+        public Long getAwaitClose() {
+            return awaitClose;
+        }
+
+        public void setAwaitClose(Long awaitClose) {
+            this.awaitClose = awaitClose;
+        }
+    }
+
+    /**
+     * 单文档请求合并配置：batch开启后并发的create请求在时间窗口内合并为一次_bulk请求提交，
+     * readBatch开启后并发的get请求在时间窗口内合并为一次_mget请求提交。
+     */
+    public static class Batch {
+        /** 是否开启合并，默认关闭 */
+        private Boolean enabled = false;
+        /** 合并等待时间窗口（毫秒），默认5毫秒 */
+        private Long window = 5L;
+        /** 每次合并的最大请求数，默认500 */
+        private Integer maxSize = 500;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Long getWindow() {
+            return window;
+        }
+
+        public void setWindow(Long window) {
+            this.window = window;
+        }
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * 异步写入队列配置：createAsync的请求先进入有界队列，在并发上限内提交。
+     */
+    public static class Async {
+        /** 队列容量，默认10000 */
+        private Integer capacity = 10000;
+        /** 正在执行的请求数上限，默认64 */
+        private Integer maxInFlight = 64;
+        /** 队列满时的溢出策略：BLOCK/DROP_OLDEST/FAIL_FAST，默认BLOCK */
+        private ElasticsearchAsyncWriter.OverflowPolicy overflowPolicy = ElasticsearchAsyncWriter.OverflowPolicy.BLOCK;
+
+        public Integer getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(Integer capacity) {
+            this.capacity = capacity;
+        }
+
+        public Integer getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(Integer maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public ElasticsearchAsyncWriter.OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(ElasticsearchAsyncWriter.OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
+
+    /**
+     * updateByQuery/deleteByQuery/reindex的切片及批次配置，可以通过indices按索引覆盖，例如：
+     * spring.elasticsearch.byQuery.slices=auto
+     * spring.elasticsearch.byQuery.indices.posts.slices=8
+     */
+    public static class ByQuery {
+        /** 切片数：auto表示由es按索引主分片数切片，也可以指定数字，默认auto */
+        private String slices = "auto";
+        /** 每批次滚动查询的文档数（scroll_size），默认1000 */
+        private Integer batchSize = 1000;
+        /** 最多处理的文档数，为空时处理全部匹配的文档 */
+        private Integer maxDocs;
+        /** 按索引覆盖的配置，key为索引名，未配置的属性使用上面的默认值 */
+        private Map<String, ByQueryIndex> indices = new LinkedHashMap<>();
+
+        /**
+         * 获取索引的配置：索引配置中的属性优先，未配置的属性使用默认值
+         *
+         * @param indexName 索引；
+         * @return
+         */
+        public ByQuery forIndex(String indexName) {
+            ByQueryIndex index = indices.get(indexName);
+            if (index == null) {
+                return this;
+            }
+
+            ByQuery result = new ByQuery();
+            result.setSlices(index.getSlices() != null ? index.getSlices() : slices);
+            result.setBatchSize(index.getBatchSize() != null ? index.getBatchSize() : batchSize);
+            result.setMaxDocs(index.getMaxDocs() != null ? index.getMaxDocs() : maxDocs);
+            return result;
+        }
+
+        public String getSlices() {
+            return slices;
+        }
+
+        public void setSlices(String slices) {
+            this.slices = slices;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Integer getMaxDocs() {
+            return maxDocs;
+        }
+
+        public void setMaxDocs(Integer maxDocs) {
+            this.maxDocs = maxDocs;
+        }
+
+        public Map<String, ByQueryIndex> getIndices() {
+            return indices;
+        }
+
+        public void setIndices(Map<String, ByQueryIndex> indices) {
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * 按索引覆盖的切片及批次配置，属性为空时使用ByQuery中的默认值
+     */
+    public static class ByQueryIndex {
+        /** 切片数：auto或数字 */
+        private String slices;
+        /** 每批次滚动查询的文档数 */
+        private Integer batchSize;
+        /** 最多处理的文档数 */
+        private Integer maxDocs;
+
+        public String getSlices() {
+            return slices;
+        }
+
+        public void setSlices(String slices) {
+            this.slices = slices;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Integer getMaxDocs() {
+            return maxDocs;
+        }
+
+        public void setMaxDocs(Integer maxDocs) {
+            this.maxDocs = maxDocs;
+        }
+    }
+
+    /**
+     * 流式读取配置：stream按批次滚动查询，后台预取下一批次。
+     */
+    public static class Scroll {
+        /** 每批次查询的文档数，默认1000 */
+        private Integer size = 1000;
+        /** scroll上下文保持时间（秒），需要大于处理一个批次的时间，默认60秒 */
+        private Long keepAlive = 60L;
+        /** 未指定线程池时并行执行导出切片的线程数，切片数超过线程数时排队执行，默认4 */
+        private Integer exportThreads = 4;
+
+        public Integer getSize() {
+            return size;
+        }
+
+        public void setSize(Integer size) {
+            this.size = size;
+        }
+
+        public Long getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Long keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public Integer getExportThreads() {
+            return exportThreads;
+        }
+
+        public void setExportThreads(Integer exportThreads) {
+            this.exportThreads = exportThreads;
+        }
+    }
+
+    /**
+     * 索引的get近端缓存配置：按访问频率淘汰，超过存活时间后失效，本模板的写操作自动使缓存失效。
+     */
+    public static class NearCache {
+        /** 最多缓存的文档数，默认10000 */
+        private Integer maxSize = 10000;
+        /** 缓存存活时间（秒），默认60秒 */
+        private Long ttl = 60L;
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Long ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * 查询结果缓存配置：相同的分页查询及聚合查询在缓存有效期内直接返回缓存的结果，
+     * 本模板对索引的写操作使该索引的缓存失效。
+     */
+    public static class SearchCache {
+        /** 是否开启，默认关闭 */
+        private Boolean enabled = false;
+        /** 最多缓存的查询数，默认1000 */
+        private Integer maxEntries = 1000;
+        /** 缓存结果的最大总大小（MB），默认64MB */
+        private Integer maxSize = 64;
+        /** 缓存存活时间（秒），默认60秒 */
+        private Long ttl = 60L;
+        /** 索引刷新间隔（毫秒），写入后该时间内的查询结果可能还不包含新写入的文档，不缓存，默认1000毫秒 */
+        private Long refreshInterval = 1000L;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(Integer maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Long ttl) {
+            this.ttl = ttl;
+        }
+
+        public Long getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Long refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    /**
+     * 搜索建议配置：热点前缀在存活时间内使用本地缓存的结果。
+     */
+    public static class Suggest {
+        /** 最多缓存的前缀数，0表示不缓存，默认10000 */
+        private Integer cacheSize = 10000;
+        /** 缓存存活时间（秒），0表示不缓存，默认5秒 */
+        private Long cacheTtl = 5L;
+
+        public Integer getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(Integer cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public Long getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Long cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
+    }
 }
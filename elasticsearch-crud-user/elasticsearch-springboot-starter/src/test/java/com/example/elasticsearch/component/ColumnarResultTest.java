@@ -0,0 +1,105 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jackie wang
+ * @Title: ColumnarResultTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 列式查询结果：按列类型转换doc values，缺失值标记，字符串字典编码。
+ * @date 2026/10/17 23:59
+ */
+public class ColumnarResultTest {
+
+    /**
+     * @param values 字段名与值交替排列，值为null时不返回该字段
+     */
+    private static SearchHit hit(String id, Object... values) {
+        Map<String, DocumentField> fields = new HashMap<>();
+        for (int i = 0; i < values.length; i += 2) {
+            String name = (String) values[i];
+            if (values[i + 1] != null) {
+                fields.put(name, new DocumentField(name, Arrays.asList(values[i + 1])));
+            }
+        }
+        return new SearchHit(0, id, new Text("_doc"), fields);
+    }
+
+    private static ColumnarResult result() {
+        SearchHit[] hits = {
+                hit("1", "likes", 10, "price", 9.5f, "postDate", 1571000000000L, "company", "acme"),
+                hit("2", "likes", 20L, "price", 12.25, "postDate", "1571000000001", "company", "globex"),
+                hit("3", "likes", null, "price", "7.5", "postDate", null, "company", "acme")
+        };
+        Map<String, ColumnarResult.ColumnType> columns = new LinkedHashMap<>();
+        columns.put("likes", ColumnarResult.ColumnType.LONG);
+        columns.put("price", ColumnarResult.ColumnType.DOUBLE);
+        columns.put("postDate", ColumnarResult.ColumnType.DATE);
+        columns.put("company", ColumnarResult.ColumnType.STRING);
+        return new ColumnarResult(hits, columns);
+    }
+
+    @Test
+    public void numericColumnsArePrimitiveArrays() {
+        ColumnarResult result = result();
+        assertEquals(3, result.size());
+        assertArrayEquals(new String[]{"1", "2", "3"}, result.getIds());
+        assertEquals(Arrays.asList("likes", "price", "postDate", "company"), Arrays.asList(result.getColumnNames().toArray()));
+
+        // integer与long统一为long，float与字符串形式的小数统一为double
+        assertArrayEquals(new long[]{10, 20, 0}, result.getLongs("likes"));
+        assertArrayEquals(new double[]{9.5, 12.25, 7.5}, result.getDoubles("price"), 0);
+        // epoch_millis格式的日期以字符串返回
+        assertArrayEquals(new long[]{1571000000000L, 1571000000001L, 0}, result.getLongs("postDate"));
+    }
+
+    @Test
+    public void missingValuesAreMarked() {
+        ColumnarResult result = result();
+        assertFalse(result.isMissing("likes", 0));
+        assertTrue(result.isMissing("likes", 2));
+        assertTrue(result.isMissing("postDate", 2));
+        assertFalse(result.isMissing("price", 2));
+    }
+
+    @Test
+    public void stringsAreDictionaryEncoded() {
+        ColumnarResult.StringColumn company = result().getStrings("company");
+        assertEquals(Arrays.asList("acme", "globex"), company.getDictionary());
+        assertArrayEquals(new int[]{0, 1, 0}, company.getCodes());
+        assertEquals("globex", company.get(1));
+    }
+
+    @Test
+    public void missingStringIsNull() {
+        Map<String, ColumnarResult.ColumnType> columns = new LinkedHashMap<>();
+        columns.put("company", ColumnarResult.ColumnType.STRING);
+        ColumnarResult result = new ColumnarResult(new SearchHit[]{hit("1", "company", null)}, columns);
+        assertNull(result.getStrings("company").get(0));
+        assertEquals(-1, result.getStrings("company").getCodes()[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongColumnTypeIsRejected() {
+        result().getDoubles("likes");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownColumnIsRejected() {
+        result().getLongs("views");
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.elasticsearch.component;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchAsyncWriterTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 异步写入队列的溢出策略、执行中计数与关闭行为
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchAsyncWriterTest {
+
+    private static final String INDEX_RESPONSE = "{\"_index\":\"user\",\"_type\":\"_doc\",\"_id\":\"1\",\"_version\":1,"
+            + "\"result\":\"created\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"_seq_no\":0,\"_primary_term\":1}";
+
+    /** 放行前es不返回响应，请求停留在执行中 */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ElasticsearchStubServer server;
+    private ElasticsearchAsyncWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ElasticsearchStubServer(request -> {
+            release.await(10, TimeUnit.SECONDS);
+            return new ElasticsearchStubServer.Response(201, INDEX_RESPONSE);
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        if (writer != null) {
+            writer.close();
+        }
+        server.close();
+    }
+
+    @Test
+    public void failFastRejectsWhenQueueIsFull() throws Exception {
+        writer = new ElasticsearchAsyncWriter(server.getClient(), 1, 1, ElasticsearchAsyncWriter.OverflowPolicy.FAIL_FAST);
+        CompletableFuture<IndexResponse> first = fillPipeline();
+        CompletableFuture<IndexResponse> queued = submit("3");
+
+        try {
+            submit("4");
+            fail("queue is full");
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, writer.getRejected());
+        }
+
+        release.countDown();
+        assertEquals("created", first.get(10, TimeUnit.SECONDS).getResult().getLowercase());
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void dropOldestFailsTheDroppedRequest() throws Exception {
+        writer = new ElasticsearchAsyncWriter(server.getClient(), 1, 1, ElasticsearchAsyncWriter.OverflowPolicy.DROP_OLDEST);
+        fillPipeline();
+        CompletableFuture<IndexResponse> dropped = submit("3");
+        CompletableFuture<IndexResponse> newest = submit("4");
+
+        assertRejected(dropped);
+        assertEquals(1, writer.getRejected());
+        assertEquals(1, writer.getQueueSize());
+
+        release.countDown();
+        assertNotNull(newest.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void inFlightIsReleasedWhenResponseArrives() throws Exception {
+        writer = new ElasticsearchAsyncWriter(server.getClient(), 4, 2, ElasticsearchAsyncWriter.OverflowPolicy.FAIL_FAST);
+        CompletableFuture<IndexResponse> first = submit("1");
+        CompletableFuture<IndexResponse> second = submit("2");
+        CompletableFuture<IndexResponse> third = submit("3");
+
+        await(() -> writer.getInFlight() == 2 && writer.getQueueSize() == 0);
+        assertFalse(third.isDone());
+
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        third.get(10, TimeUnit.SECONDS);
+        await(() -> writer.getInFlight() == 0);
+        assertEquals(3, server.getRequests().size());
+    }
+
+    @Test
+    public void closeWakesBlockedProducer() throws Exception {
+        writer = new ElasticsearchAsyncWriter(server.getClient(), 1, 1, ElasticsearchAsyncWriter.OverflowPolicy.BLOCK);
+        CompletableFuture<IndexResponse> first = fillPipeline();
+        CompletableFuture<IndexResponse> queued = submit("3");
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> {
+            try {
+                submit("4");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(blocked.isDone());
+
+        Thread closer = new Thread(writer::close);
+        closer.start();
+        try {
+            blocked.get(10, TimeUnit.SECONDS);
+            fail("writer is closed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        // 关闭前已入队的请求仍会提交
+        release.countDown();
+        closer.join(10000);
+        assertFalse(closer.isAlive());
+        assertNotNull(first.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+        assertEquals(0, writer.getInFlight());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void submitAfterCloseIsRejected() throws Exception {
+        writer = new ElasticsearchAsyncWriter(server.getClient(), 1, 1, ElasticsearchAsyncWriter.OverflowPolicy.BLOCK);
+        writer.close();
+        submit("1");
+    }
+
+    /**
+     * 第1个请求执行中，第2个请求已被分发线程取出等待许可，队列为空
+     */
+    private CompletableFuture<IndexResponse> fillPipeline() throws Exception {
+        CompletableFuture<IndexResponse> first = submit("1");
+        await(() -> writer.getInFlight() == 1);
+        submit("2");
+        await(() -> writer.getQueueSize() == 0);
+        return first;
+    }
+
+    private CompletableFuture<IndexResponse> submit(String id) throws InterruptedException {
+        CompletableFuture<IndexResponse> future = new CompletableFuture<>();
+        writer.submit(new IndexRequest("user").id(id).source("name", "jackie"), new ActionListener<IndexResponse>() {
+            @Override
+            public void onResponse(IndexResponse indexResponse) {
+                future.complete(indexResponse);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private static void assertRejected(CompletableFuture<IndexResponse> future) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("request should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.elasticsearch.component;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchCompositeIteratorTest
+ * @ProjectName elasticsearch-crud
+ * @Description: composite聚合流式读取：按after_key翻页，翻页只修改聚合的副本，调用方设置的after作为起始位置。
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchCompositeIteratorTest {
+    /** 每页2个桶，共3个用户 */
+    private static final List<String> USERS = Arrays.asList("u1", "u2", "u3");
+
+    private ElasticsearchStubServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok(page(request.getBody())));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    /**
+     * 返回after之后的一页桶，最后一页之后返回空页且不带after_key
+     */
+    private static String page(String body) {
+        JSONObject composite = JSON.parseObject(body).getJSONObject("aggregations")
+                .getJSONObject("by_user").getJSONObject("composite");
+        int size = composite.getIntValue("size");
+        JSONObject after = composite.getJSONObject("after");
+        int from = after == null ? 0 : USERS.indexOf(after.getString("user")) + 1;
+
+        List<String> buckets = new ArrayList<>();
+        List<String> users = USERS.subList(Math.min(from, USERS.size()), Math.min(from + size, USERS.size()));
+        for (String user : users) {
+            buckets.add("{\"key\":{\"user\":\"" + user + "\"},\"doc_count\":" + (USERS.indexOf(user) + 1) + "}");
+        }
+        String afterKey = users.isEmpty() ? "" : "\"after_key\":{\"user\":\"" + users.get(users.size() - 1) + "\"},";
+        return "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":6,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[]},"
+                + "\"aggregations\":{\"composite#by_user\":{" + afterKey + "\"buckets\":[" + String.join(",", buckets) + "]}}}";
+    }
+
+    private static CompositeAggregationBuilder byUser() {
+        List<CompositeValuesSourceBuilder<?>> sources = new ArrayList<>();
+        sources.add(new TermsValuesSourceBuilder("user").field("user.keyword"));
+        return new CompositeAggregationBuilder("by_user", sources).size(2);
+    }
+
+    private ElasticsearchCompositeIterator iterator(CompositeAggregationBuilder aggregationBuilder) throws Exception {
+        SearchRequest request = new SearchRequest("posts").source(new SearchSourceBuilder().size(0));
+        return new ElasticsearchCompositeIterator(server.getClient(), request, aggregationBuilder);
+    }
+
+    private static List<Object> users(ElasticsearchCompositeIterator iterator) {
+        try (Stream<AggregationBucket> stream = iterator.stream()) {
+            return stream.map(bucket -> ((Map<?, ?>) bucket.getKey()).get("user")).collect(Collectors.toList());
+        }
+    }
+
+    private Object requestedAfter(int request) {
+        JSONObject after = JSON.parseObject(server.getRequests().get(request).getBody()).getJSONObject("aggregations")
+                .getJSONObject("by_user").getJSONObject("composite").getJSONObject("after");
+        return after == null ? null : after.get("user");
+    }
+
+    @Test
+    public void pagesByAfterKey() throws Exception {
+        ElasticsearchCompositeIterator iterator = iterator(byUser());
+        assertEquals(USERS, users(iterator));
+        assertEquals(3, iterator.getFetched());
+
+        // 第一页不带after，之后每页从上一页的after_key开始，直到空页
+        assertEquals(3, server.getRequests().size());
+        assertNull(requestedAfter(0));
+        assertEquals("u2", requestedAfter(1));
+        assertEquals("u3", requestedAfter(2));
+    }
+
+    @Test
+    public void callerBuilderIsNotModified() throws Exception {
+        CompositeAggregationBuilder aggregationBuilder = byUser();
+        String before = Strings.toString(aggregationBuilder);
+        assertEquals(USERS, users(iterator(aggregationBuilder)));
+        assertEquals(before, Strings.toString(aggregationBuilder));
+
+        // 同一个聚合可以再次从头读取
+        assertEquals(USERS, users(iterator(aggregationBuilder)));
+    }
+
+    @Test
+    public void startsAfterCallerAfterKey() throws Exception {
+        CompositeAggregationBuilder aggregationBuilder = byUser().aggregateAfter(Collections.singletonMap("user", "u1"));
+        assertEquals(Arrays.asList("u2", "u3"), users(iterator(aggregationBuilder)));
+        assertEquals("u1", requestedAfter(0));
+    }
+
+    @Test
+    public void closeStopsPaging() throws Exception {
+        ElasticsearchCompositeIterator iterator = iterator(byUser());
+        assertEquals("u1", ((Map<?, ?>) iterator.next().getKey()).get("user"));
+        iterator.close();
+        assertFalse(iterator.hasNext());
+    }
+}
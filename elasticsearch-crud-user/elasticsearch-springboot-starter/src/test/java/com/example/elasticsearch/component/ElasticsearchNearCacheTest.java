@@ -0,0 +1,159 @@
+package com.example.elasticsearch.component;
+
+import com.example.elasticsearch.configuration.ElasticsearchProperties;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetResult;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchNearCacheTest
+ * @ProjectName elasticsearch-crud
+ * @Description: get近端缓存：版本失效标记、存活时间、失效及容量淘汰。
+ * @date 2026/10/17 23:55
+ */
+public class ElasticsearchNearCacheTest {
+    private static final String INDEX = "posts";
+    private static final String TYPE = "_doc";
+
+    private static ElasticsearchNearCache cache(int maxSize, long ttl) {
+        ElasticsearchProperties.NearCache config = new ElasticsearchProperties.NearCache();
+        config.setMaxSize(maxSize);
+        config.setTtl(ttl);
+        return new ElasticsearchNearCache(Collections.singletonMap(INDEX, config));
+    }
+
+    private static GetResponse response(String id, long version, String source) {
+        return new GetResponse(new GetResult(INDEX, TYPE, id, 1, 1, version, true,
+                new BytesArray(source), Collections.emptyMap()));
+    }
+
+    @Test
+    public void returnsCachedDocument() {
+        ElasticsearchNearCache cache = cache(100, 60);
+        cache.put(response("1", 1, "{\"user\":\"kimchy\"}"));
+
+        GetResponse cached = cache.get(INDEX, TYPE, "1");
+        assertNotNull(cached);
+        assertEquals(1, cached.getVersion());
+        assertEquals("kimchy", cached.getSourceAsMap().get("user"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void indexWithoutConfigIsNotCached() {
+        ElasticsearchNearCache cache = cache(100, 60);
+        assertFalse(cache.isEnabled("other"));
+        cache.put(new GetResponse(new GetResult("other", TYPE, "1", 1, 1, 1, true,
+                new BytesArray("{}"), Collections.emptyMap())));
+        assertNull(cache.get("other", TYPE, "1"));
+    }
+
+    @Test
+    public void eachHitReturnsSeparateSourceMap() {
+        ElasticsearchNearCache cache = cache(100, 60);
+        cache.put(response("1", 1, "{\"user\":\"kimchy\"}"));
+
+        Map<String, Object> first = cache.get(INDEX, TYPE, "1").getSourceAsMap();
+        first.put("_id", "1");
+        Map<String, Object> second = cache.get(INDEX, TYPE, "1").getSourceAsMap();
+        assertNotSame(first, second);
+        assertFalse(second.containsKey("_id"));
+    }
+
+    @Test
+    public void invalidateWithVersionRejectsOlderRead() {
+        ElasticsearchNearCache cache = cache(100, 60);
+        cache.put(response("1", 1, "{\"user\":\"kimchy\"}"));
+
+        cache.invalidate(INDEX, TYPE, "1", 2);
+        assertNull(cache.get(INDEX, TYPE, "1"));
+
+        // 写入前发出的读取，结果晚于失效到达，不能重新写入缓存
+        cache.put(response("1", 1, "{\"user\":\"kimchy\"}"));
+        assertNull(cache.get(INDEX, TYPE, "1"));
+
+        cache.put(response("1", 2, "{\"user\":\"jackie\"}"));
+        assertEquals("jackie", cache.get(INDEX, TYPE, "1").getSourceAsMap().get("user"));
+    }
+
+    @Test
+    public void invalidateWithoutVersionRemovesEntry() {
+        ElasticsearchNearCache cache = cache(100, 60);
+        cache.put(response("1", 3, "{}"));
+
+        cache.invalidate(INDEX, TYPE, "1", -1);
+        assertNull(cache.get(INDEX, TYPE, "1"));
+        assertEquals(0, cache.size(INDEX));
+
+        cache.put(response("1", 1, "{}"));
+        assertNotNull(cache.get(INDEX, TYPE, "1"));
+    }
+
+    @Test
+    public void invalidateAllClearsIndex() {
+        ElasticsearchNearCache cache = cache(100, 60);
+        cache.put(response("1", 1, "{}"));
+        cache.put(response("2", 1, "{}"));
+
+        cache.invalidateAll(INDEX);
+        assertEquals(0, cache.size(INDEX));
+        assertNull(cache.get(INDEX, TYPE, "1"));
+    }
+
+    @Test
+    public void expiredEntryIsMiss() throws Exception {
+        ElasticsearchNearCache cache = cache(100, 1);
+        cache.put(response("1", 1, "{}"));
+        assertNotNull(cache.get(INDEX, TYPE, "1"));
+
+        Thread.sleep(1100);
+        assertNull(cache.get(INDEX, TYPE, "1"));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void expiredVersionMarkerAllowsPut() throws Exception {
+        ElasticsearchNearCache cache = cache(100, 1);
+        cache.invalidate(INDEX, TYPE, "1", 5);
+
+        Thread.sleep(1100);
+        cache.put(response("1", 1, "{}"));
+        assertNotNull(cache.get(INDEX, TYPE, "1"));
+    }
+
+    @Test
+    public void sizeNeverExceedsMaxSize() {
+        int maxSize = 50;
+        ElasticsearchNearCache cache = cache(maxSize, 60);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(response(String.valueOf(i), 1, "{}"));
+            assertTrue(cache.size(INDEX) <= maxSize);
+        }
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    public void frequentlyReadDocumentSurvivesEviction() {
+        ElasticsearchNearCache cache = cache(10, 60);
+        cache.put(response("hot", 1, "{}"));
+        for (int i = 0; i < 20; i++) {
+            cache.get(INDEX, TYPE, "hot");
+        }
+        for (int i = 0; i < 10; i++) {
+            cache.put(response(String.valueOf(i), 1, "{}"));
+        }
+        assertNotNull(cache.get(INDEX, TYPE, "hot"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.elasticsearch.component;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchReadBatcherTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 读请求合并：同一批次的get合并为一次_mget，重复文档只查询一次，失败按条目分发给调用方。
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchReadBatcherTest {
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private ElasticsearchStubServer server;
+    private ElasticsearchReadBatcher batcher;
+
+    @After
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+        if (batcher != null) {
+            batcher.close();
+        }
+        server.close();
+    }
+
+    /**
+     * 按_mget请求中的顺序返回文档：索引missing不存在，id为none的文档不存在
+     */
+    private static ElasticsearchStubServer.Response mget(ElasticsearchStubServer.Request request) {
+        List<String> docs = new ArrayList<>();
+        JSONArray items = JSON.parseObject(request.getBody()).getJSONArray("docs");
+        for (int i = 0; i < items.size(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            String index = item.getString("_index");
+            String id = item.getString("_id");
+            String head = "\"_index\":\"" + index + "\",\"_type\":\"_doc\",\"_id\":\"" + id + "\"";
+            if ("missing".equals(index)) {
+                docs.add("{" + head + ",\"error\":{\"root_cause\":[],\"type\":\"index_not_found_exception\","
+                        + "\"reason\":\"no such index [missing]\",\"index_uuid\":\"_na_\",\"index\":\"missing\"}}");
+            } else if ("none".equals(id)) {
+                docs.add("{" + head + ",\"found\":false}");
+            } else {
+                docs.add("{" + head + ",\"_version\":1,\"_seq_no\":0,\"_primary_term\":1,\"found\":true,"
+                        + "\"_source\":{\"title\":\"post " + id + "\"}}");
+            }
+        }
+        return ElasticsearchStubServer.Response.ok("{\"docs\":[" + String.join(",", docs) + "]}");
+    }
+
+    private Future<GetResponse> get(String index, String id) {
+        return callers.submit(() -> batcher.execute(new GetRequest(index, "_doc", id)));
+    }
+
+    @Test
+    public void duplicatesAreFetchedOnce() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchReadBatcherTest::mget);
+        batcher = new ElasticsearchReadBatcher(server.getClient(), 60000, 4);
+
+        List<Future<GetResponse>> responses = new ArrayList<>();
+        responses.add(get("posts", "1"));
+        responses.add(get("posts", "1"));
+        responses.add(get("posts", "2"));
+        responses.add(get("posts", "none"));
+
+        GetResponse first = responses.get(0).get(10, TimeUnit.SECONDS);
+        GetResponse second = responses.get(1).get(10, TimeUnit.SECONDS);
+        assertEquals("post 1", first.getSourceAsMap().get("title"));
+        assertEquals("post 1", second.getSourceAsMap().get("title"));
+        // 相同文档的调用方各自得到独立的响应，修改Map不会互相影响
+        assertNotSame(first, second);
+        assertNotSame(first.getSourceAsMap(), second.getSourceAsMap());
+        assertEquals("post 2", responses.get(2).get(10, TimeUnit.SECONDS).getSourceAsMap().get("title"));
+        assertFalse(responses.get(3).get(10, TimeUnit.SECONDS).isExists());
+
+        assertEquals(1, server.getRequests().size());
+        assertEquals(3, JSON.parseObject(server.getRequests().get(0).getBody()).getJSONArray("docs").size());
+    }
+
+    @Test
+    public void missingIndexFailsWithNotFound() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchReadBatcherTest::mget);
+        batcher = new ElasticsearchReadBatcher(server.getClient(), 60000, 2);
+
+        Future<GetResponse> good = get("posts", "1");
+        Future<GetResponse> missing = get("missing", "1");
+        assertEquals("1", good.get(10, TimeUnit.SECONDS).getId());
+        try {
+            missing.get(10, TimeUnit.SECONDS);
+            fail("index does not exist");
+        } catch (ExecutionException e) {
+            assertEquals(RestStatus.NOT_FOUND, ((ElasticsearchException) e.getCause()).status());
+        }
+    }
+
+    @Test
+    public void requestFailureFailsEveryCaller() throws Exception {
+        server = new ElasticsearchStubServer(request -> new ElasticsearchStubServer.Response(429,
+                "{\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected\"},\"status\":429}"));
+        batcher = new ElasticsearchReadBatcher(server.getClient(), 60000, 2);
+
+        List<Future<GetResponse>> responses = new ArrayList<>();
+        responses.add(get("posts", "1"));
+        responses.add(get("posts", "2"));
+        for (Future<GetResponse> response : responses) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("mget request should fail");
+            } catch (ExecutionException e) {
+                assertEquals(RestStatus.TOO_MANY_REQUESTS, ((ElasticsearchException) e.getCause()).status());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectAfterClose() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchReadBatcherTest::mget);
+        batcher = new ElasticsearchReadBatcher(server.getClient(), 50, 10);
+        batcher.close();
+        batcher.execute(new GetRequest("posts", "_doc", "1"));
+    }
+}
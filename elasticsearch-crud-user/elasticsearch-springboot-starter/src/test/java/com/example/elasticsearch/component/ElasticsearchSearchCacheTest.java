@@ -0,0 +1,190 @@
+package com.example.elasticsearch.component;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchSearchCacheTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 查询结果缓存：key的规范化、写入代数失效、刷新间隔及按大小淘汰。
+ * @date 2026/10/17 23:58
+ */
+public class ElasticsearchSearchCacheTest {
+    private static final String INDEX = "posts";
+
+    private static ElasticsearchSearchCache cache(int maxEntries, int maxSize, long refreshInterval) {
+        return new ElasticsearchSearchCache(true, maxEntries, maxSize, 60, refreshInterval);
+    }
+
+    private static SearchRequest request(String user) {
+        return new SearchRequest(INDEX).source(new SearchSourceBuilder().query(QueryBuilders.termQuery("user", user)));
+    }
+
+    private static SearchResponse response(int sourceLength) {
+        SearchHit[] hits = new SearchHit[0];
+        if (sourceLength > 0) {
+            char[] chars = new char[sourceLength - 8];
+            Arrays.fill(chars, 'a');
+            SearchHit hit = new SearchHit(1, "1", new Text("_doc"), Collections.emptyMap());
+            hit.sourceRef(new BytesArray("{\"m\":\"" + new String(chars) + "\"}"));
+            hits = new SearchHit[]{hit};
+        }
+        InternalSearchResponse sections = new InternalSearchResponse(
+                new SearchHits(hits, new TotalHits(hits.length, TotalHits.Relation.EQUAL_TO), 1.0f),
+                null, null, null, false, null, 1);
+        return new SearchResponse(sections, null, 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    private static SearchRequest scriptRequest(Map<String, Object> params, String... indices) {
+        Script script = new Script(ScriptType.INLINE, "painless", "doc['age'].value > params.min", params);
+        return new SearchRequest(indices).source(new SearchSourceBuilder().query(QueryBuilders.scriptQuery(script)));
+    }
+
+    @Test
+    public void keyIgnoresFieldOrderAndIndexOrder() throws Exception {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("min", 10);
+        first.put("max", 20);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("max", 20);
+        second.put("min", 10);
+
+        assertEquals(ElasticsearchSearchCache.key(scriptRequest(first, "posts", "users")),
+                ElasticsearchSearchCache.key(scriptRequest(second, "users", "posts")));
+    }
+
+    @Test
+    public void keyIncludesQueryRoutingAndPreference() throws Exception {
+        String key = ElasticsearchSearchCache.key(request("kimchy"));
+        assertNotEquals(key, ElasticsearchSearchCache.key(request("jackie")));
+        assertNotEquals(key, ElasticsearchSearchCache.key(request("kimchy").routing("1")));
+        assertNotEquals(key, ElasticsearchSearchCache.key(request("kimchy").preference("_local")));
+        assertEquals(ElasticsearchSearchCache.key(request("kimchy").routing("1")),
+                ElasticsearchSearchCache.key(request("kimchy").routing("1")));
+    }
+
+    @Test
+    public void returnsCachedResponseUntilIndexIsWritten() throws Exception {
+        ElasticsearchSearchCache cache = cache(100, 10, 0);
+        AtomicInteger calls = new AtomicInteger();
+        SearchResponse response = response(0);
+
+        assertSame(response, cache.search(request("kimchy"), () -> {
+            calls.incrementAndGet();
+            return response;
+        }));
+        assertSame(response, cache.search(request("kimchy"), () -> {
+            calls.incrementAndGet();
+            return response(0);
+        }));
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHits());
+
+        // 其他索引的写入不影响
+        cache.invalidate("users");
+        cache.search(request("kimchy"), () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        assertEquals(1, calls.get());
+
+        cache.invalidate(INDEX);
+        cache.search(request("kimchy"), () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void writeDuringSearchIsNotCached() throws Exception {
+        ElasticsearchSearchCache cache = cache(100, 10, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.search(request("kimchy"), () -> {
+            calls.incrementAndGet();
+            cache.invalidate(INDEX);
+            return response(0);
+        });
+        assertEquals(0, cache.size());
+        cache.search(request("kimchy"), () -> {
+            calls.incrementAndGet();
+            return response(0);
+        });
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void notCachedWithinRefreshInterval() throws Exception {
+        ElasticsearchSearchCache cache = cache(100, 10, 500);
+        cache.invalidate(INDEX);
+
+        cache.search(request("kimchy"), () -> response(0));
+        assertEquals(0, cache.size());
+
+        Thread.sleep(600);
+        cache.search(request("kimchy"), () -> response(0));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByCount() throws Exception {
+        ElasticsearchSearchCache cache = cache(2, 10, 0);
+        cache.search(request("a"), () -> response(0));
+        cache.search(request("b"), () -> response(0));
+        // 访问a后，b成为最久未使用
+        cache.search(request("a"), () -> response(0));
+        cache.search(request("c"), () -> response(0));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        long hits = cache.getHits();
+        cache.search(request("a"), () -> response(0));
+        assertEquals(hits + 1, cache.getHits());
+    }
+
+    @Test
+    public void totalBytesNeverExceedMaxSize() throws Exception {
+        long maxBytes = 1024L * 1024L;
+        ElasticsearchSearchCache cache = cache(100, 1, 0);
+        for (int i = 0; i < 10; i++) {
+            cache.search(request(String.valueOf(i)), () -> response(300 * 1024));
+            assertTrue(cache.getBytes() <= maxBytes);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(7, cache.getEvictions());
+    }
+
+    @Test
+    public void responseLargerThanMaxSizeIsNotCached() throws Exception {
+        ElasticsearchSearchCache cache = cache(100, 1, 0);
+        cache.search(request("kimchy"), () -> response(2 * 1024 * 1024));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.elasticsearch.component;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchStubServer
+ * @ProjectName elasticsearch-crud
+ * @Description: 单元测试用的es http桩：按请求返回预先写好的json响应，记录收到的请求，
+ * 使RestHighLevelClient不连接集群也能完整执行请求序列化与响应解析。
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchStubServer implements Closeable {
+
+    /**
+     * 响应处理，返回null时响应404
+     */
+    public interface Handler {
+        Response handle(Request request) throws Exception;
+    }
+
+    public static class Request {
+        private final String method;
+        private final String path;
+        private final String query;
+        private final String body;
+
+        private Request(String method, String path, String query, String body) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.body = body;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+
+    public static class Response {
+        private final int status;
+        private final String body;
+
+        public Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public static Response ok(String body) {
+            return new Response(200, body);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private final RestHighLevelClient client;
+
+    public ElasticsearchStubServer(Handler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Request request = new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                        exchange.getRequestURI().getQuery(), read(exchange.getRequestBody()));
+                requests.add(request);
+                Response response = handler.handle(request);
+                if (response == null) {
+                    response = new Response(404, "{\"error\":{\"type\":\"index_not_found_exception\",\"reason\":\"no such index\"},\"status\":404}");
+                }
+                byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+                exchange.sendResponseHeaders(response.status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } catch (Exception e) {
+                exchange.sendResponseHeaders(500, -1);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        client = new RestHighLevelClient(RestClient.builder(
+                new HttpHost("127.0.0.1", server.getAddress().getPort(), "http")));
+    }
+
+    public RestHighLevelClient getClient() {
+        return client;
+    }
+
+    /**
+     * 已收到的请求，按到达顺序排列
+     */
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
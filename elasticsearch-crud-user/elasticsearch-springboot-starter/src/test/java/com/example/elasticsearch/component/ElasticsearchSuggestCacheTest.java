@@ -0,0 +1,101 @@
+package com.example.elasticsearch.component;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchSuggestCacheTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 搜索建议缓存：共用结果不可修改，查询失败（包括Error）时等待中的请求同样失败且结果不缓存。
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchSuggestCacheTest {
+
+    private static List<SuggestOption> options(String... texts) {
+        List<SuggestOption> options = new ArrayList<>();
+        for (String text : texts) {
+            options.add(new SuggestOption(text, 1.0f, null, null, 0));
+        }
+        return options;
+    }
+
+    @Test
+    public void cachedListIsSharedAndUnmodifiable() throws Exception {
+        ElasticsearchSuggestCache cache = new ElasticsearchSuggestCache(100, 60);
+        List<SuggestOption> first = cache.get("jac", () -> options("jackie"));
+        List<SuggestOption> second = cache.get("jac", () -> options("other"));
+
+        assertSame(first, second);
+        assertEquals(1, cache.getHits());
+        try {
+            second.clear();
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertEquals(1, cache.get("jac", () -> options("other")).size());
+    }
+
+    @Test
+    public void errorFailsWaitersAndIsNotCached() throws Exception {
+        ElasticsearchSuggestCache cache = new ElasticsearchSuggestCache(100, 60);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<SuggestOption>> loader = executor.submit(() -> cache.get("jac", () -> {
+                loading.countDown();
+                release.await();
+                throw new OutOfMemoryError("test");
+            }));
+            loading.await();
+
+            // 同一前缀的第二个请求等待第一个请求的结果
+            Thread waiter = new Thread(() -> {
+                try {
+                    cache.get("jac", () -> options("unexpected"));
+                } catch (Exception e) {
+                    fail(e.toString());
+                }
+            });
+            AtomicInteger errors = new AtomicInteger();
+            waiter.setUncaughtExceptionHandler((thread, e) -> {
+                if (e instanceof OutOfMemoryError) {
+                    errors.incrementAndGet();
+                }
+            });
+            waiter.start();
+            Thread.sleep(100);
+            release.countDown();
+
+            waiter.join(TimeUnit.SECONDS.toMillis(5));
+            assertFalse(waiter.isAlive());
+            assertEquals(1, errors.get());
+            try {
+                loader.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals(OutOfMemoryError.class, e.getCause().getClass());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, cache.size());
+        assertEquals("jackie", cache.get("jac", () -> options("jackie")).get(0).getText());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.elasticsearch.component;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchTaskTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 后台任务完成回调：任务失败识别及轮询线程池关闭。
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchTaskTest {
+    private static final String TASK_ID = "node-1:42";
+    private static final String TASK = "\"task\":{\"node\":\"node-1\",\"id\":42,\"type\":\"transport\",\"action\":\"indices:data/write/update/byquery\","
+            + "\"description\":\"update-by-query [posts]\",\"running_time_in_nanos\":2000000,"
+            + "\"status\":{\"total\":10,\"updated\":8,\"created\":0,\"deleted\":0,\"batches\":1,\"version_conflicts\":0,\"noops\":0,\"requests_per_second\":-1.0}}";
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private ElasticsearchStubServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void completesWithFinalStatus() throws Exception {
+        server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok(
+                "{\"completed\":true," + TASK + ",\"response\":{\"updated\":8,\"failures\":[]}}"));
+        ElasticsearchTask task = new ElasticsearchTask(server.getClient(), scheduler, TASK_ID, ElasticsearchTask.Action.UPDATE_BY_QUERY);
+
+        ElasticsearchTaskStatus status = task.completion().get(10, TimeUnit.SECONDS);
+        assertTrue(status.isCompleted());
+        assertFalse(status.isFailed());
+        assertEquals(8, status.getUpdated());
+        assertEquals("/_tasks/" + TASK_ID, server.getRequests().get(0).getPath());
+    }
+
+    @Test
+    public void bulkFailuresCompleteExceptionally() throws Exception {
+        server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok(
+                "{\"completed\":true," + TASK + ",\"response\":{\"updated\":8,\"failures\":[{\"index\":\"posts\",\"id\":\"3\","
+                        + "\"cause\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse\"},\"status\":400}]}}"));
+        ElasticsearchTask task = new ElasticsearchTask(server.getClient(), scheduler, TASK_ID, ElasticsearchTask.Action.UPDATE_BY_QUERY);
+
+        assertTrue(task.getStatus().isFailed());
+        try {
+            task.completion().get(10, TimeUnit.SECONDS);
+            fail("task failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("mapper_parsing_exception"));
+        }
+    }
+
+    @Test
+    public void taskErrorCompletesExceptionally() throws Exception {
+        server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok(
+                "{\"completed\":true," + TASK + ",\"error\":{\"type\":\"search_phase_execution_exception\",\"reason\":\"all shards failed\"}}"));
+        ElasticsearchTask task = new ElasticsearchTask(server.getClient(), scheduler, TASK_ID, ElasticsearchTask.Action.REINDEX);
+
+        try {
+            task.completion().get(10, TimeUnit.SECONDS);
+            fail("task failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("all shards failed"));
+        }
+    }
+
+    @Test
+    public void abandonedWhenPollerIsShutDown() throws Exception {
+        server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok("{\"completed\":false," + TASK + "}"));
+        Set<ElasticsearchTask> pollingTasks = ConcurrentHashMap.newKeySet();
+        ElasticsearchTask task = new ElasticsearchTask(server.getClient(), scheduler, TASK_ID, ElasticsearchTask.Action.DELETE_BY_QUERY, pollingTasks);
+
+        CompletableFuture<ElasticsearchTaskStatus> completion = task.completion();
+        assertTrue(pollingTasks.contains(task));
+
+        scheduler.shutdownNow();
+        for (ElasticsearchTask pollingTask : pollingTasks) {
+            pollingTask.abandon();
+        }
+        try {
+            completion.get(10, TimeUnit.SECONDS);
+            fail("polling stopped");
+        } catch (CancellationException e) {
+            assertTrue(pollingTasks.isEmpty());
+        }
+    }
+}
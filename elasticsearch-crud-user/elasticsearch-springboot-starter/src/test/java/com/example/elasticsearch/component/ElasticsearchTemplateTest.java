@@ -0,0 +1,152 @@
+package com.example.elasticsearch.component;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.aggregations.metrics.ParsedTDigestPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.ParsedTDigestPercentiles;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchTemplateTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 聚合结果转换：percentiles与percentile_ranks返回的map方向；get不支持docValueFields；
+ * 游标分页的游标编码及次排序字段。
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchTemplateTest {
+
+    /**
+     * 连接到http桩的模板，查询结果缓存关闭
+     */
+    static ElasticsearchTemplate template(ElasticsearchStubServer server) {
+        ElasticsearchTemplate template = new ElasticsearchTemplate();
+        ReflectionTestUtils.setField(template, "client", server.getClient());
+        ReflectionTestUtils.setField(template, "searchCache", new ElasticsearchSearchCache(false, 0, 0, 0, 0));
+        return template;
+    }
+
+    /**
+     * 返回指定文档的查询响应，每个文档的排序值为[postDate, uid]
+     */
+    static String searchResponse(long total, String... ids) {
+        StringBuilder hits = new StringBuilder();
+        for (String id : ids) {
+            if (hits.length() > 0) {
+                hits.append(',');
+            }
+            hits.append("{\"_index\":\"posts\",\"_type\":\"_doc\",\"_id\":\"").append(id)
+                    .append("\",\"_score\":null,\"_source\":{\"title\":\"post ").append(id)
+                    .append("\"},\"sort\":[1571000000000,\"uid-").append(id).append("\"]}");
+        }
+        return "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":" + total + ",\"relation\":\"eq\"},\"max_score\":null,\"hits\":[" + hits + "]}}";
+    }
+
+    private static XContentParser parser(String json) throws Exception {
+        return XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json);
+    }
+
+    @Test
+    public void percentilesMapPercentToValue() throws Exception {
+        // 客户端解析的响应：{"values":{"50.0":120.0,"95.0":480.0}}
+        ParsedTDigestPercentiles percentiles = ParsedTDigestPercentiles.fromXContent(
+                parser("{\"values\":{\"50.0\":120.0,\"95.0\":480.0}}"), "percentiles");
+
+        Map<Double, Double> result = ElasticsearchTemplate.percentiles(percentiles);
+        assertEquals(Arrays.asList(50.0, 95.0), Arrays.asList(result.keySet().toArray()));
+        assertEquals(120.0, result.get(50.0), 0);
+        assertEquals(480.0, result.get(95.0), 0);
+    }
+
+    @Test
+    public void percentileRanksMapValueToPercent() throws Exception {
+        // 客户端解析的响应：耗时200毫秒处于第40百分位，500毫秒处于第90百分位
+        ParsedTDigestPercentileRanks percentileRanks = ParsedTDigestPercentileRanks.fromXContent(
+                parser("{\"values\":{\"200.0\":40.0,\"500.0\":90.0}}"), "percentile_ranks");
+
+        Map<Double, Double> result = ElasticsearchTemplate.percentileRanks(percentileRanks);
+        assertEquals(Arrays.asList(200.0, 500.0), Arrays.asList(result.keySet().toArray()));
+        assertEquals(40.0, result.get(200.0), 0);
+        assertEquals(90.0, result.get(500.0), 0);
+        assertEquals(percentileRanks.percent(500.0), result.get(500.0), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getRejectsDocValueFields() throws Exception {
+        new ElasticsearchTemplate().get("posts", null, "1", SourceFilter.include("user").docValueFields("likes"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiGetRejectsDocValueFields() throws Exception {
+        new ElasticsearchTemplate().multiGet("posts", null, Arrays.asList("1", "2"), SourceFilter.docValuesOnly("likes"));
+    }
+
+    @Test
+    public void cursorRoundTrip() {
+        Object[] sortValues = {1571000000000L, "uid-1", 1.5, 3, true};
+        String cursor = ElasticsearchTemplate.encodeCursor(sortValues);
+        // url安全，可以直接作为查询参数
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+        assertArrayEquals(sortValues, ElasticsearchTemplate.decodeCursor(cursor));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCursorIsRejected() {
+        ElasticsearchTemplate.decodeCursor("not a cursor!");
+    }
+
+    @Test
+    public void cursorPagesWithTiebreaker() throws Exception {
+        try (ElasticsearchStubServer server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok(
+                request.getBody().contains("search_after") ? searchResponse(3, "3") : searchResponse(3, "1", "2")))) {
+            ElasticsearchTemplate template = template(server);
+
+            CursorPage<Map<String, Object>> first = template.queryByCursor("posts", 2, "postDate", "uid", null, null);
+            assertEquals(2, first.getContent().size());
+            assertTrue(first.hasNext());
+            assertArrayEquals(new Object[]{1571000000000L, "uid-2"}, ElasticsearchTemplate.decodeCursor(first.getCursor()));
+
+            // 先按排序字段降序，再按次排序字段升序
+            JSONObject body = JSON.parseObject(server.getRequests().get(0).getBody());
+            List<Object> sort = body.getJSONArray("sort");
+            assertEquals("desc", ((JSONObject) sort.get(0)).getJSONObject("postDate").getString("order"));
+            assertEquals("asc", ((JSONObject) sort.get(1)).getJSONObject("uid").getString("order"));
+            assertFalse(body.containsKey("search_after"));
+
+            CursorPage<Map<String, Object>> second = template.queryByCursor("posts", 2, "postDate", "uid", null, first.getCursor());
+            assertEquals("3", second.getContent().get(0).get("_id"));
+            assertFalse(second.hasNext());
+            assertNull(second.getCursor());
+            assertEquals(Arrays.asList(1571000000000L, "uid-2"),
+                    JSON.parseObject(server.getRequests().get(1).getBody()).getJSONArray("search_after"));
+        }
+    }
+
+    @Test
+    public void cursorSortsByScoreWithoutSortField() throws Exception {
+        try (ElasticsearchStubServer server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok(searchResponse(1, "1")))) {
+            template(server).queryByCursor("posts", 2, null, "uid", null, null);
+
+            List<Object> sort = JSON.parseObject(server.getRequests().get(0).getBody()).getJSONArray("sort");
+            assertEquals("desc", ((JSONObject) sort.get(0)).getJSONObject("_score").getString("order"));
+            assertEquals("asc", ((JSONObject) sort.get(1)).getJSONObject("uid").getString("order"));
+        }
+    }
+}
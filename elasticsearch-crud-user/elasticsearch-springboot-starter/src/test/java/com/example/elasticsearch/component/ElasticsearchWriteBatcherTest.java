@@ -0,0 +1,151 @@
+package com.example.elasticsearch.component;
+
+import com.alibaba.fastjson.JSON;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jackie wang
+ * @Title: ElasticsearchWriteBatcherTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 写请求合并：按数量上限及时间窗口提交，单个文档失败只影响该文档的调用方，关闭后拒绝请求。
+ * @date 2026/10/17 23:59
+ */
+public class ElasticsearchWriteBatcherTest {
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private ElasticsearchStubServer server;
+    private ElasticsearchWriteBatcher batcher;
+
+    @After
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+        if (batcher != null) {
+            batcher.close();
+        }
+        server.close();
+    }
+
+    /**
+     * 按_bulk请求中的顺序返回每个文档的结果，id为bad的文档返回版本冲突
+     */
+    private static ElasticsearchStubServer.Response bulk(ElasticsearchStubServer.Request request) {
+        List<String> items = new ArrayList<>();
+        String[] lines = request.getBody().split("\n");
+        for (int i = 0; i < lines.length; i += 2) {
+            String id = JSON.parseObject(lines[i]).getJSONObject("index").getString("_id");
+            if ("bad".equals(id)) {
+                items.add("{\"index\":{\"_index\":\"posts\",\"_type\":\"_doc\",\"_id\":\"bad\",\"status\":409,"
+                        + "\"error\":{\"type\":\"version_conflict_engine_exception\",\"reason\":\"version conflict\",\"index_uuid\":\"posts-uuid\",\"shard\":\"0\",\"index\":\"posts\"}}}");
+            } else {
+                items.add("{\"index\":{\"_index\":\"posts\",\"_type\":\"_doc\",\"_id\":\"" + id + "\",\"_version\":1,\"result\":\"created\","
+                        + "\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"_seq_no\":0,\"_primary_term\":1,\"status\":201}}");
+            }
+        }
+        return ElasticsearchStubServer.Response.ok("{\"took\":3,\"errors\":" + request.getBody().contains("\"bad\"")
+                + ",\"items\":[" + String.join(",", items) + "]}");
+    }
+
+    private Future<DocWriteResponse> index(String id) {
+        return callers.submit(() -> batcher.execute(new IndexRequest("posts", "_doc", id).source("title", "hello")));
+    }
+
+    @Test
+    public void flushWhenMaxSizeReached() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchWriteBatcherTest::bulk);
+        batcher = new ElasticsearchWriteBatcher(server.getClient(), 60000, 3);
+
+        List<Future<DocWriteResponse>> responses = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            responses.add(index(String.valueOf(i)));
+        }
+        for (Future<DocWriteResponse> response : responses) {
+            assertEquals(DocWriteResponse.Result.CREATED, response.get(10, TimeUnit.SECONDS).getResult());
+        }
+        assertEquals(1, server.getRequests().size());
+        assertEquals("/_bulk", server.getRequests().get(0).getPath());
+    }
+
+    @Test
+    public void flushWhenWindowElapses() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchWriteBatcherTest::bulk);
+        batcher = new ElasticsearchWriteBatcher(server.getClient(), 50, 500);
+
+        DocWriteResponse response = index("1").get(10, TimeUnit.SECONDS);
+        assertEquals("1", response.getId());
+        assertEquals(0, batcher.getQueueSize());
+    }
+
+    @Test
+    public void itemFailureOnlyFailsItsCaller() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchWriteBatcherTest::bulk);
+        batcher = new ElasticsearchWriteBatcher(server.getClient(), 60000, 2);
+
+        Future<DocWriteResponse> good = index("1");
+        Future<DocWriteResponse> bad = index("bad");
+        assertEquals("1", good.get(10, TimeUnit.SECONDS).getId());
+        try {
+            bad.get(10, TimeUnit.SECONDS);
+            fail("document should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ElasticsearchStatusException);
+            assertEquals(RestStatus.CONFLICT, ((ElasticsearchStatusException) e.getCause()).status());
+        }
+        assertEquals(1, server.getRequests().size());
+    }
+
+    @Test
+    public void requestFailureFailsEveryCaller() throws Exception {
+        server = new ElasticsearchStubServer(request -> new ElasticsearchStubServer.Response(503,
+                "{\"error\":{\"type\":\"cluster_block_exception\",\"reason\":\"blocked\"},\"status\":503}"));
+        batcher = new ElasticsearchWriteBatcher(server.getClient(), 60000, 2);
+
+        List<Future<DocWriteResponse>> responses = new ArrayList<>();
+        responses.add(index("1"));
+        responses.add(index("2"));
+        for (Future<DocWriteResponse> response : responses) {
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("bulk request should fail");
+            } catch (ExecutionException e) {
+                assertEquals(RestStatus.SERVICE_UNAVAILABLE, ((ElasticsearchStatusException) e.getCause()).status());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectAfterClose() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchWriteBatcherTest::bulk);
+        batcher = new ElasticsearchWriteBatcher(server.getClient(), 50, 10);
+        batcher.close();
+        batcher.execute(new IndexRequest("posts", "_doc", "1").source("title", "hello"));
+    }
+
+    @Test
+    public void closeFlushesQueuedRequests() throws Exception {
+        server = new ElasticsearchStubServer(ElasticsearchWriteBatcherTest::bulk);
+        batcher = new ElasticsearchWriteBatcher(server.getClient(), 500, 100);
+
+        Future<DocWriteResponse> response = index("1");
+        while (batcher.getQueueSize() == 0 && server.getRequests().isEmpty() && !response.isDone()) {
+            Thread.sleep(5);
+        }
+        batcher.close();
+        assertEquals("1", response.get(10, TimeUnit.SECONDS).getId());
+    }
+}
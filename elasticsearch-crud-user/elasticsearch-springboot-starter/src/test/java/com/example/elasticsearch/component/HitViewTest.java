@@ -0,0 +1,124 @@
+package com.example.elasticsearch.component;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jackie wang
+ * @Title: HitViewTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 延迟解析视图：嵌套字段、带“.”的字段名查找，以及多个字段在一次扫描中解析。
+ * @date 2026/10/17 23:59
+ */
+public class HitViewTest {
+    private static final String SOURCE = "{\"title\":\"hello\",\"content\":{\"body\":\"long text\",\"words\":[1,2,3]},"
+            + "\"user\":{\"name\":\"jackie\",\"address\":{\"city\":\"shanghai\"}},\"meta.tag\":\"es\",\"likes\":42,\"deleted\":null}";
+
+    @Test
+    public void nestedAndDottedPaths() {
+        HitView view = new HitView("1", 1.0f, new BytesArray(SOURCE));
+        assertEquals("jackie", view.getString("user.name"));
+        assertEquals("shanghai", view.get("user.address.city"));
+        assertEquals("es", view.get("meta.tag"));
+        assertEquals(Long.valueOf(42), view.getLong("likes"));
+        assertEquals(Arrays.asList(1, 2, 3), view.get("content.words"));
+        assertNull(view.get("deleted"));
+        assertNull(view.get("user.age"));
+        assertNull(view.get("title.length"));
+    }
+
+    @Test
+    public void objectAndChildInOneScan() {
+        CountingBytes source = new CountingBytes(SOURCE);
+        HitView view = new HitView("1", 1.0f, source).fetch("user", "user.address.city", "user.email");
+        assertEquals(1, source.scans);
+
+        Map<?, ?> user = (Map<?, ?>) view.get("user");
+        assertEquals("jackie", user.get("name"));
+        assertEquals("shanghai", view.get("user.address.city"));
+        assertNull(view.get("user.email"));
+        assertEquals(1, source.scans);
+    }
+
+    @Test
+    public void declaredPathsResolvedOnFirstAccess() {
+        CountingBytes source = new CountingBytes(SOURCE);
+        List<String> paths = Arrays.asList("title", "user.name", "meta.tag", "likes", "missing");
+        HitView view = new HitView("1", 1.0f, source, paths);
+        assertEquals(0, source.scans);
+
+        assertEquals("hello", view.get("title"));
+        assertEquals("jackie", view.get("user.name"));
+        assertEquals("es", view.get("meta.tag"));
+        assertEquals(42L, view.getLong("likes").longValue());
+        assertNull(view.get("missing"));
+        assertEquals(1, source.scans);
+
+        // 未声明的字段单独扫描一次，之后从缓存读取
+        assertEquals("shanghai", view.get("user.address.city"));
+        assertEquals("shanghai", view.get("user.address.city"));
+        assertEquals(2, source.scans);
+    }
+
+    @Test
+    public void nullSource() {
+        HitView view = new HitView("1", 1.0f, null, Arrays.asList("title"));
+        assertNull(view.get("title"));
+        assertTrue(view.toMap().isEmpty());
+    }
+
+    /**
+     * 统计_source被扫描的次数
+     */
+    private static class CountingBytes extends BytesReference {
+        private final BytesArray bytes;
+        private int scans = 0;
+
+        private CountingBytes(String json) {
+            this.bytes = new BytesArray(json);
+        }
+
+        @Override
+        public StreamInput streamInput() throws IOException {
+            scans++;
+            return bytes.streamInput();
+        }
+
+        @Override
+        public byte get(int index) {
+            return bytes.get(index);
+        }
+
+        @Override
+        public int length() {
+            return bytes.length();
+        }
+
+        @Override
+        public BytesReference slice(int from, int length) {
+            return bytes.slice(from, length);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return bytes.ramBytesUsed();
+        }
+
+        @Override
+        public BytesRef toBytesRef() {
+            return bytes.toBytesRef();
+        }
+    }
+}
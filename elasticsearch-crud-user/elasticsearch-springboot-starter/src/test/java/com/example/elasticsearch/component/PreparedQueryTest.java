@@ -0,0 +1,120 @@
+package com.example.elasticsearch.component;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jackie wang
+ * @Title: PreparedQueryTest
+ * @ProjectName elasticsearch-crud
+ * @Description: 预编译查询：模板变量解析、参数检查，以及执行时只发送模板id和参数。
+ * @date 2026/10/17 23:59
+ */
+public class PreparedQueryTest {
+    private static final String SOURCE = "{\"from\":{{from}},\"size\":{{ size }},\"query\":{\"bool\":{\"filter\":["
+            + "{\"term\":{\"user\":\"{{user}}\"}},{\"range\":{\"postDate\":{\"gte\":\"{{range.gte}}\"}}}"
+            + "{{#tags}},{\"terms\":{\"tags\":{{{tags}}}}}{{/tags}}],\"must_not\":{\"term\":{\"user\":\"{{user}}\"}}}}}";
+
+    private static Map<String, Object> params() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("from", 0);
+        params.put("size", 10);
+        params.put("user", "jackie");
+        params.put("range", Collections.singletonMap("gte", "2026-01-01"));
+        params.put("tags", "[\"es\"]");
+        return params;
+    }
+
+    @Test
+    public void parametersInTemplateOrder() {
+        PreparedQuery query = new PreparedQuery("posts-by-user", SOURCE);
+        // 段落标记不是变量，重复的变量只出现一次
+        assertEquals(Arrays.asList("from", "size", "user", "range.gte", "tags"), Arrays.asList(query.getParameters().toArray()));
+    }
+
+    @Test
+    public void completeParamsPass() {
+        new PreparedQuery("posts-by-user", SOURCE).validate(params());
+    }
+
+    @Test
+    public void missingParamIsRejected() {
+        Map<String, Object> params = params();
+        params.remove("user");
+        try {
+            new PreparedQuery("posts-by-user", SOURCE).validate(params);
+            fail("missing parameter should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("user"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingNestedParamIsRejected() {
+        Map<String, Object> params = params();
+        params.remove("range");
+        new PreparedQuery("posts-by-user", SOURCE).validate(params);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullParamsAreRejected() {
+        new PreparedQuery("posts-by-user", SOURCE).validate(null);
+    }
+
+    @Test
+    public void queryBindsParamsToStoredTemplate() throws Exception {
+        try (ElasticsearchStubServer server = new ElasticsearchStubServer(request -> ElasticsearchStubServer.Response.ok(
+                ElasticsearchTemplateTest.searchResponse(1, "1")))) {
+            PreparedQuery query = new PreparedQuery("posts-by-user", SOURCE);
+            List<Map<String, Object>> documents = ElasticsearchTemplateTest.template(server).query("posts", query, params());
+            assertEquals("post 1", documents.get(0).get("title"));
+
+            // 只发送模板id和参数，不发送查询结构
+            ElasticsearchStubServer.Request request = server.getRequests().get(0);
+            assertEquals("/posts/_search/template", request.getPath());
+            JSONObject body = JSON.parseObject(request.getBody());
+            assertEquals("posts-by-user", body.getString("id"));
+            assertEquals("jackie", body.getJSONObject("params").getString("user"));
+            assertEquals("2026-01-01", body.getJSONObject("params").getJSONObject("range").getString("gte"));
+            assertFalse(body.containsKey("source"));
+        }
+    }
+
+    @Test
+    public void missingStoredTemplateIsRegisteredAgain() throws Exception {
+        AtomicBoolean registered = new AtomicBoolean();
+        try (ElasticsearchStubServer server = new ElasticsearchStubServer(request -> {
+            if (request.getPath().equals("/_scripts/posts-by-user")) {
+                registered.set(true);
+                return ElasticsearchStubServer.Response.ok("{\"acknowledged\":true}");
+            }
+            if (!registered.get()) {
+                return new ElasticsearchStubServer.Response(400, "{\"error\":{\"root_cause\":[],\"type\":\"resource_not_found_exception\","
+                        + "\"reason\":\"unable to find script [posts-by-user] in cluster state\"},\"status\":400}");
+            }
+            return ElasticsearchStubServer.Response.ok(ElasticsearchTemplateTest.searchResponse(1, "1"));
+        })) {
+            PreparedQuery query = new PreparedQuery("posts-by-user", SOURCE);
+            List<Map<String, Object>> documents = ElasticsearchTemplateTest.template(server).query("posts", query, params());
+            assertEquals(1, documents.size());
+
+            assertEquals(3, server.getRequests().size());
+            JSONObject script = JSON.parseObject(server.getRequests().get(1).getBody()).getJSONObject("script");
+            assertEquals("mustache", script.getString("lang"));
+            assertEquals(SOURCE, script.getString("source"));
+        }
+    }
+}